@@ -0,0 +1,204 @@
+package gorany.dslshop.repository;
+
+import static gorany.dslshop.entity.QMember.member;
+import static gorany.dslshop.entity.QTeam.team;
+import static gorany.dslshop.repository.MemberSearchPredicates.ageGoe;
+import static gorany.dslshop.repository.MemberSearchPredicates.ageLoe;
+import static gorany.dslshop.repository.MemberSearchPredicates.teamNameEq;
+import static gorany.dslshop.repository.MemberSearchPredicates.usernameEq;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.DslshopApplication;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.dto.MemberTeamDTO;
+import gorany.dslshop.dto.QMemberTeamDTO;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.service.DataSeeder;
+import gorany.dslshop.service.SeedPlan;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/*
+ * ./gradlew jmh
+ * 같은 회원 검색을 여러 방식으로 돌려서 처리량(ops/s)과 할당량(-prof gc 의 gc.alloc.rate.norm)을 비교한다.
+ * - 문자열 JPQL vs Querydsl, 요청마다 만드는 BooleanBuilder / where 파라미터 쿼리 vs shape 별로 직렬화해둔 검색 쿼리
+ * - 페이징: content + count vs content 만
+ * - DTO projection vs 엔티티(fetch join) 조회
+ * 검색 결과 / count 캐시와 Hibernate 2차 캐시 / query cache 는 끄고 매번 DB 를 조회한다.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory factory;
+    MemberJpaRepository memberJpaRepository;
+    MemberRepository memberRepository;
+
+    String username;
+    MemberSearchCondition condition;
+    Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DslshopApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(
+                "--spring.profiles.active=jmh",
+                "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--dslshop.search.result-cache.enabled=false",
+                "--dslshop.search.count-cache.enabled=false",
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false"
+            );
+
+        context.getBean(DataSeeder.class).seed(SeedPlan.builder()
+            .teams(2)
+            .members(rows)
+            .chunkSize(5_000)
+            .build());
+
+        em = context.getBean(EntityManager.class);
+        factory = new JPAQueryFactory(em);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        username = "username" + (rows / 2);
+        //teamA 이면서 age 30 -> 전체의 약 0.5%
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(30);
+        pageable = PageRequest.of(1, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //findByUsername: 문자열 JPQL / Querydsl / Spring Data 쿼리 메소드
+
+    @Benchmark
+    public List<Member> findByUsernameJpql() {
+        return memberJpaRepository.findByUsername(username);
+    }
+
+    @Benchmark
+    public List<Member> findByUsernameQuerydsl() {
+        return memberJpaRepository.findByUsername_Querydsl(username);
+    }
+
+    @Benchmark
+    public List<Member> findByUsernameDerived() {
+        return memberRepository.findByUsername(username);
+    }
+
+    //동적 검색: 요청마다 만드는 BooleanBuilder / where 다중 파라미터 Querydsl 쿼리 vs shape 별로 직렬화해둔 쿼리 (search)
+
+    @Benchmark
+    public List<MemberTeamDTO> searchBooleanBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> searchWhereParameters() {
+        return factory
+            .select(new QMemberTeamDTO(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+            ))
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            )
+            .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> searchShapeCache() {
+        return memberJpaRepository.search(condition);
+    }
+
+    //projection: 같은 조건을 엔티티(team fetch join)로 조회
+
+    @Benchmark
+    public List<Member> searchEntities() {
+        return factory
+            .selectFrom(member)
+            .leftJoin(member.team, team).fetchJoin()
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            )
+            .fetch();
+    }
+
+    //페이징: content + count / count 생략 가능 / content 만
+
+    @Benchmark
+    public Page<MemberTeamDTO> pageWithCount() {
+        return memberRepository.searchPageSimple(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDTO> pageWithOptionalCount() {
+        return memberRepository.searchByBuilderComplex(condition, pageable);
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> pageContentOnly() {
+        return factory
+            .select(new QMemberTeamDTO(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+            ))
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            )
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+    }
+}
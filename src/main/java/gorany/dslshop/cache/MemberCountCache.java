@@ -0,0 +1,142 @@
+package gorany.dslshop.cache;
+
+import gorany.dslshop.dto.CacheStatsDTO;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.event.AfterCompletion;
+import gorany.dslshop.event.EntityChangeEvent;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/*
+ * 페이징 검색의 count 쿼리 결과 캐시
+ * key 는 정규화한 MemberSearchCondition (페이지 번호/크기와 무관하게 total 은 같다)
+ *
+ * - TTL 이 지나면 다시 count
+ * - Member / Team 이 INSERT / UPDATE / DELETE 되면 무효화
+ * - estimate 모드: threshold 이상인 total 은 "대략적인 값"으로 보고 쓰기에 의해 무효화하지 않고 estimate TTL 동안 유지한다.
+ */
+@Component
+public class MemberCountCache {
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final boolean estimateEnabled;
+    private final long estimateThreshold;
+    private final long estimateTtlMillis;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<MemberSearchCondition, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public MemberCountCache(
+        @Value("${dslshop.search.count-cache.enabled:false}") boolean enabled,
+        @Value("${dslshop.search.count-cache.ttl-seconds:30}") long ttlSeconds,
+        @Value("${dslshop.search.count-cache.max-entries:10000}") int maxEntries,
+        @Value("${dslshop.search.count-cache.estimate.enabled:false}") boolean estimateEnabled,
+        @Value("${dslshop.search.count-cache.estimate.threshold:100000}") long estimateThreshold,
+        @Value("${dslshop.search.count-cache.estimate.ttl-seconds:600}") long estimateTtlSeconds) {
+        this(enabled, ttlSeconds * 1000, maxEntries, estimateEnabled, estimateThreshold, estimateTtlSeconds * 1000,
+            System::currentTimeMillis);
+    }
+
+    MemberCountCache(boolean enabled, long ttlMillis, int maxEntries,
+        boolean estimateEnabled, long estimateThreshold, long estimateTtlMillis, LongSupplier clock) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.estimateEnabled = estimateEnabled;
+        this.estimateThreshold = estimateThreshold;
+        this.estimateTtlMillis = estimateTtlMillis;
+        this.clock = clock;
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        if (!enabled) {
+            return countQuery.getAsLong();
+        }
+
+        MemberSearchCondition key = condition.normalize();
+        long now = clock.getAsLong();
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            hits.increment();
+            return entry.count;
+        }
+        misses.increment();
+
+        long startGeneration = generation.get();
+        long count = countQuery.getAsLong();
+
+        //count 도중 무효화가 있었다면 이미 낡은 값일 수 있으므로 저장하지 않는다.
+        if (generation.get() == startGeneration && hasRoomFor(key, now)) {
+            boolean estimated = estimateEnabled && count >= estimateThreshold;
+            entries.put(key, new Entry(count, now + (estimated ? estimateTtlMillis : ttlMillis), estimated));
+        }
+        return count;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        if (estimateEnabled) {
+            entries.values().removeIf(entry -> !entry.estimated);
+        } else {
+            entries.clear();
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!enabled || !(event.isFor(Member.class) || event.isFor(Team.class))) {
+            return;
+        }
+        invalidate();
+        AfterCompletion.runOnce(this, this::invalidate);
+    }
+
+    public CacheStatsDTO stats() {
+        return new CacheStatsDTO("member-count", hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private boolean hasRoomFor(MemberSearchCondition key, long now) {
+        if (entries.size() < maxEntries || entries.containsKey(key)) {
+            return true;
+        }
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        evictions.add(Math.max(0, before - entries.size()));
+        return entries.size() < maxEntries;
+    }
+
+    private static class Entry {
+
+        private final long count;
+        private final long expiresAt;
+        private final boolean estimated;
+
+        Entry(long count, long expiresAt, boolean estimated) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+            this.estimated = estimated;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package gorany.dslshop.cache;
+
+import gorany.dslshop.dto.CacheStatsDTO;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.event.AfterCompletion;
+import gorany.dslshop.event.EntityChangeEvent;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/*
+ * 검색 결과 캐시 (프로세스 내)
+ * key: 쿼리 이름 + 정규화한 MemberSearchCondition + Pageable
+ *
+ * - 엔트리 수(max-entries)와 결과 row 수의 합(max-rows) 두 가지로 크기를 제한한다.
+ * - 넘치면 LRU(가장 오래 안 쓴 것) 또는 LFU(가장 적게 쓴 것, 같으면 오래 안 쓴 것)부터 내보낸다.
+ * - Member / Team 의 INSERT / UPDATE / DELETE 이벤트로 전부 무효화한다. (JPQL bulk 연산은 TTL 로 만료)
+ */
+@Component
+public class MemberSearchResultCache {
+
+    public enum Policy {
+        LRU, LFU
+    }
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxRows;
+    private final long ttlMillis;
+    private final Policy policy;
+    private final LongSupplier clock;
+
+    //access-order: 순회 순서가 가장 오래 안 쓴 것부터
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long rows;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public MemberSearchResultCache(
+        @Value("${dslshop.search.result-cache.enabled:false}") boolean enabled,
+        @Value("${dslshop.search.result-cache.max-entries:1000}") int maxEntries,
+        @Value("${dslshop.search.result-cache.max-rows:100000}") long maxRows,
+        @Value("${dslshop.search.result-cache.ttl-seconds:60}") long ttlSeconds,
+        @Value("${dslshop.search.result-cache.policy:LRU}") Policy policy) {
+        this(enabled, maxEntries, maxRows, ttlSeconds * 1000, policy, System::currentTimeMillis);
+    }
+
+    MemberSearchResultCache(boolean enabled, int maxEntries, long maxRows, long ttlMillis, Policy policy,
+        LongSupplier clock) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+        this.ttlMillis = ttlMillis;
+        this.policy = policy;
+        this.clock = clock;
+    }
+
+    /*
+     * weigher: 결과의 크기(row 수). max-rows 보다 큰 결과는 캐시하지 않는다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String query, MemberSearchCondition condition, Pageable pageable,
+        Supplier<T> loader, ToIntFunction<T> weigher) {
+
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Key key = new Key(query, condition.normalize(), pageable);
+        long now = clock.getAsLong();
+        long startGeneration;
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                entry.frequency++;
+                hits.increment();
+                return (T) entry.value;
+            }
+            if (entry != null) {
+                remove(key);
+            }
+            startGeneration = generation;
+        }
+        misses.increment();
+
+        T value = loader.get();
+        int weight = Math.max(1, weigher.applyAsInt(value));
+
+        synchronized (this) {
+            //조회 도중 무효화가 있었다면 낡은 결과일 수 있으므로 저장하지 않는다.
+            if (generation == startGeneration && weight <= maxRows) {
+                remove(key);
+                entries.put(key, new Entry(value, weight, now + ttlMillis));
+                rows += weight;
+                evictIfNecessary(key);
+            }
+        }
+        return value;
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+        rows = 0;
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!enabled || !(event.isFor(Member.class) || event.isFor(Team.class))) {
+            return;
+        }
+        invalidate();
+        AfterCompletion.runOnce(this, this::invalidate);
+    }
+
+    public synchronized CacheStatsDTO stats() {
+        return new CacheStatsDTO("member-search", hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    public synchronized long rows() {
+        return rows;
+    }
+
+    //방금 넣은 결과는 (그것 하나만 남은 경우가 아니면) 내보내지 않는다.
+    private void evictIfNecessary(Key inserted) {
+        while (entries.size() > 1 && (entries.size() > maxEntries || rows > maxRows)) {
+            Key victim = policy == Policy.LFU ? leastFrequentlyUsed(inserted) : leastRecentlyUsed(inserted);
+            remove(victim);
+            evictions.increment();
+        }
+    }
+
+    private Key leastRecentlyUsed(Key inserted) {
+        for (Key key : entries.keySet()) {
+            if (!key.equals(inserted)) {
+                return key;
+            }
+        }
+        return inserted;
+    }
+
+    private Key leastFrequentlyUsed(Key inserted) {
+        Map.Entry<Key, Entry> victim = null;
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> candidate = iterator.next();
+            if (!candidate.getKey().equals(inserted)
+                && (victim == null || candidate.getValue().frequency < victim.getValue().frequency)) {
+                victim = candidate;
+            }
+        }
+        return victim != null ? victim.getKey() : inserted;
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            rows -= removed.weight;
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+
+        private final String query;
+        private final MemberSearchCondition condition;
+        private final Pageable pageable;
+    }
+
+    private static class Entry {
+
+        private final Object value;
+        private final int weight;
+        private final long expiresAt;
+        private long frequency = 1;
+
+        Entry(Object value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
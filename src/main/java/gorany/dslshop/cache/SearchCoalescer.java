@@ -0,0 +1,127 @@
+package gorany.dslshop.cache;
+
+import gorany.dslshop.dto.MemberSearchCondition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * 같은 검색(정규화한 MemberSearchCondition + Pageable)이 동시에 여러 번 들어오면 한 번만 실행하고 결과를 나눠 준다. (single-flight)
+ * 먼저 온 요청(leader)이 실행하는 동안 뒤에 온 요청(follower)은 그 결과(또는 예외)를 기다린다.
+ * 끝난 결과는 보관하지 않는다. (보관은 MemberSearchResultCache 의 일)
+ *
+ * - 트랜잭션(커넥션)을 잡기 전, repository 앞(controller)에서 호출한다. follower 가 기다리는 동안 커넥션을 들고 있지 않도록.
+ * - 읽기 전용이 아닌 트랜잭션 안에서는 합치지 않는다. (아직 커밋되지 않은 자신의 변경을 봐야 하므로)
+ * - follower 는 wait-millis 까지만 기다리고, 넘으면 직접 실행한다. (leader 가 느리거나 멈춰도 같이 묶이지 않게)
+ * - dslshop.search.coalescing{query, role=leader|follower|timeout}
+ *   follower 수 = 합쳐진 요청 수, timeout 수 = 그 중 기다리다가 직접 실행한 요청 수
+ */
+@Slf4j
+@Component
+public class SearchCoalescer {
+
+    private final boolean enabled;
+    private final long waitMillis;
+    private final MeterRegistry registry;
+
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SearchCoalescer(@Value("${dslshop.search.coalescing.enabled:false}") boolean enabled,
+        @Value("${dslshop.search.coalescing.wait-millis:3000}") long waitMillis,
+        ObjectProvider<MeterRegistry> registry) {
+        this(enabled, waitMillis, registry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    SearchCoalescer(boolean enabled, long waitMillis, MeterRegistry registry) {
+        this.enabled = enabled;
+        this.waitMillis = waitMillis;
+        this.registry = registry;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String query, MemberSearchCondition condition, Pageable pageable, Supplier<T> loader) {
+        if (!enabled || (TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return loader.get();
+        }
+
+        Key key = new Key(query, condition.normalize(), pageable);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+
+        if (running != null) {
+            counter(query, "follower").increment();
+            try {
+                return (T) running.get(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                counter(query, "timeout").increment();
+                log.warn("coalesced {} did not finish in {} ms, searching directly", query, waitMillis);
+                return loader.get();
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for " + query, e);
+            }
+        }
+
+        counter(query, "leader").increment();
+        try {
+            T result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private Counter counter(String query, String role) {
+        return Counter.builder("dslshop.search.coalescing")
+            .tag("query", query)
+            .tag("role", role)
+            .register(registry);
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+
+        private final String query;
+        private final MemberSearchCondition condition;
+        private final Pageable pageable;
+    }
+}
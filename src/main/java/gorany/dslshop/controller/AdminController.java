@@ -0,0 +1,75 @@
+package gorany.dslshop.controller;
+
+import gorany.dslshop.dto.IndexAdviceDTO;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.dto.MemberTeamViewCheckDTO;
+import gorany.dslshop.metrics.IndexAdvisor;
+import gorany.dslshop.service.BulkReport;
+import gorany.dslshop.service.IdSequenceMigrationJob;
+import gorany.dslshop.service.MemberBulkService;
+import gorany.dslshop.service.MemberTeamViewRebuildJob;
+import gorany.dslshop.service.ReplyPathBackfillJob;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequiredArgsConstructor
+@RestController
+public class AdminController {
+
+    private final ReplyPathBackfillJob replyPathBackfillJob;
+    private final IdSequenceMigrationJob idSequenceMigrationJob;
+    private final IndexAdvisor indexAdvisor;
+    private final MemberBulkService memberBulkService;
+    private final MemberTeamViewRebuildJob memberTeamViewRebuildJob;
+
+    @PostMapping("/admin/replies/path-backfill")
+    public ResponseEntity<Map<String, Long>> backfillReplyPath(@RequestParam(defaultValue = "1000") int chunkSize) {
+        return new ResponseEntity<>(Map.of("updated", replyPathBackfillJob.run(chunkSize)), HttpStatus.OK);
+    }
+
+    @PostMapping("/admin/id-sequences/migrate")
+    public ResponseEntity<Map<String, Long>> migrateIdSequences() {
+        return new ResponseEntity<>(idSequenceMigrationJob.run(), HttpStatus.OK);
+    }
+
+    //검색조건에 맞는 회원의 나이를 delta 만큼 (chunk 마다 커밋)
+    @PostMapping("/admin/members/bulk/age")
+    public ResponseEntity<BulkReport> adjustMemberAge(MemberSearchCondition condition, @RequestParam int delta) {
+        return new ResponseEntity<>(memberBulkService.adjustAge(condition, delta), HttpStatus.OK);
+    }
+
+    @PostMapping("/admin/members/bulk/team")
+    public ResponseEntity<BulkReport> reassignMemberTeam(MemberSearchCondition condition, @RequestParam Long teamId) {
+        return new ResponseEntity<>(memberBulkService.reassignTeam(condition, teamId), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/admin/members/bulk")
+    public ResponseEntity<BulkReport> deleteMembers(MemberSearchCondition condition) {
+        return new ResponseEntity<>(memberBulkService.delete(condition), HttpStatus.OK);
+    }
+
+    @PostMapping("/admin/member-team-view/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuildMemberTeamView(@RequestParam(defaultValue = "10000") int chunkSize) {
+        return new ResponseEntity<>(Map.of("rows", memberTeamViewRebuildJob.rebuild(chunkSize)), HttpStatus.OK);
+    }
+
+    //member / team 과 member_team_view 가 어긋난 행 수 (missing / orphaned / stale)
+    @GetMapping("/admin/member-team-view/check")
+    public ResponseEntity<MemberTeamViewCheckDTO> checkMemberTeamView() {
+        return new ResponseEntity<>(memberTeamViewRebuildJob.check(), HttpStatus.OK);
+    }
+
+    //dslshop.index-advisor.enabled=true 일 때 모은 select 문의 EXPLAIN 결과
+    @GetMapping("/admin/index-advice")
+    public ResponseEntity<List<IndexAdviceDTO>> indexAdvice() {
+        return new ResponseEntity<>(indexAdvisor.analyze(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,52 @@
+package gorany.dslshop.controller;
+
+import gorany.dslshop.dto.ReplyThreadDTO;
+import gorany.dslshop.service.ReplyThreadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RequiredArgsConstructor
+@RestController
+public class BoardController {
+
+    private final ReplyThreadService replyThreadService;
+
+    @GetMapping("/boards/{boardId}/replies")
+    public ResponseEntity<ReplyThreadDTO> replies(@PathVariable Long boardId,
+        @RequestParam(required = false) Integer threads,
+        @RequestParam(required = false) Integer maxDepth,
+        @RequestParam(required = false) Integer maxChildren) {
+
+        if (threads != null && threads < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "threads must be positive: " + threads);
+        }
+        int depth = maxDepth != null ? maxDepth : ReplyThreadService.UNLIMITED;
+        int children = maxChildren != null ? maxChildren : ReplyThreadService.UNLIMITED;
+
+        ReplyThreadDTO thread = threads != null
+            ? replyThreadService.loadTopThreads(boardId, threads, depth, children)
+            : replyThreadService.loadThread(boardId, depth, children);
+        return new ResponseEntity<>(thread, HttpStatus.OK);
+    }
+
+    @GetMapping("/boards/{boardId}/replies/{replyId}")
+    public ResponseEntity<ReplyThreadDTO> replyThread(@PathVariable Long boardId, @PathVariable Long replyId,
+        @RequestParam(required = false) Integer maxDepth,
+        @RequestParam(required = false) Integer maxChildren) {
+
+        ReplyThreadDTO thread = replyThreadService.loadSubtree(boardId, replyId,
+            maxDepth != null ? maxDepth : ReplyThreadService.UNLIMITED,
+            maxChildren != null ? maxChildren : ReplyThreadService.UNLIMITED);
+        //없는 댓글이거나 다른 게시글의 댓글
+        if (thread.getTotalReplies() == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reply " + replyId + " not found on board " + boardId);
+        }
+        return new ResponseEntity<>(thread, HttpStatus.OK);
+    }
+}
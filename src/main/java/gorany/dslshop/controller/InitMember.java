@@ -1,14 +1,12 @@
 package gorany.dslshop.controller;
 
-import gorany.dslshop.entity.Member;
-import gorany.dslshop.entity.Team;
+import gorany.dslshop.service.DataSeeder;
+import gorany.dslshop.service.SeedPlan;
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 @Profile("local")
 @Component
@@ -22,22 +20,38 @@ public class InitMember {
         service.init();
     }
 
+    /*
+     * 건수는 dslshop.seed.* 로 조절한다.
+     * 기본값은 기존 초기 데이터와 같다. (teamA, teamB 에 번갈아 배정된 회원 100명)
+     */
     @Component
     static class InitMemberService {
 
-        @PersistenceContext private EntityManager em;
+        private final DataSeeder seeder;
+        private final SeedPlan plan;
+
+        InitMemberService(DataSeeder seeder,
+            @Value("${dslshop.seed.teams:2}") int teams,
+            @Value("${dslshop.seed.members:100}") int members,
+            @Value("${dslshop.seed.users:0}") int users,
+            @Value("${dslshop.seed.boards:0}") int boards,
+            @Value("${dslshop.seed.cities:0}") int cities,
+            @Value("${dslshop.seed.replies:0}") int replies,
+            @Value("${dslshop.seed.team-skew:0}") double teamSkew,
+            @Value("${dslshop.seed.reply-depth-probability:0}") double replyDepthProbability,
+            @Value("${dslshop.seed.chunk-size:1000}") int chunkSize,
+            @Value("${dslshop.seed.random-seed:42}") long randomSeed) {
+            this.seeder = seeder;
+            this.plan = SeedPlan.builder()
+                .teams(teams).members(members)
+                .users(users).boards(boards).cities(cities).replies(replies)
+                .teamSkew(teamSkew).replyDepthProbability(replyDepthProbability)
+                .chunkSize(chunkSize).randomSeed(randomSeed)
+                .build();
+        }
 
-        @Transactional
         public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-
-            em.persist(teamA); em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("username" + i, i, selectedTeam));
-            }
+            seeder.seed(plan);
         }
     }
 }
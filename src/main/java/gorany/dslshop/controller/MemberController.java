@@ -1,40 +1,108 @@
 package gorany.dslshop.controller;
 
+import gorany.dslshop.cache.SearchCoalescer;
+import gorany.dslshop.dto.CursorResult;
+import gorany.dslshop.dto.MemberCursor;
 import gorany.dslshop.dto.MemberDTO;
 import gorany.dslshop.dto.MemberSearchCondition;
 import gorany.dslshop.dto.MemberTeamDTO;
 import gorany.dslshop.entity.Member;
 import gorany.dslshop.repository.MemberJpaRepository;
 import gorany.dslshop.repository.MemberRepository;
+import gorany.dslshop.repository.MemberTeamViewRepository;
+import gorany.dslshop.service.MemberExportService;
+import java.io.IOException;
 import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RequiredArgsConstructor
 @RestController
 public class MemberController {
 
+    private static final int MAX_CURSOR_SIZE = 100;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final SearchCoalescer searchCoalescer;
+    private final MemberTeamViewRepository memberTeamViewRepository;
 
     @GetMapping("/v1/members")
     public ResponseEntity<List<MemberTeamDTO>> searchMemberV1(MemberSearchCondition condition) {
         return new ResponseEntity<>(memberJpaRepository.search(condition), HttpStatus.OK);
     }
 
+    @GetMapping("/v1/members/export")
+    public void exportMembers(MemberSearchCondition condition,
+        @RequestParam(defaultValue = "ndjson") String format,
+        HttpServletResponse response) throws IOException {
+
+        response.setCharacterEncoding("UTF-8");
+        if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members.csv\"");
+            memberExportService.exportCsv(condition, response.getWriter());
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            response.setContentType("application/x-ndjson");
+            memberExportService.exportNdjson(condition, response.getWriter());
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+    }
+
     @GetMapping("/v2/members")
     public ResponseEntity<Page<MemberTeamDTO>> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return new ResponseEntity<>(memberRepository.searchPageSimple(condition, pageable), HttpStatus.OK);
+        return new ResponseEntity<>(searchCoalescer.execute("searchPageSimple", condition, pageable,
+            () -> memberRepository.searchPageSimple(condition, pageable)), HttpStatus.OK);
     }
 
     @GetMapping("/v3/members")
     public ResponseEntity<Page<MemberTeamDTO>> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return new ResponseEntity<>(memberRepository.searchByBuilderComplex(condition, pageable), HttpStatus.OK);
+        //같은 조건 / 페이지의 동시 요청은 한 번만 조회한다.
+        return new ResponseEntity<>(searchCoalescer.execute("searchByBuilderComplex", condition, pageable,
+            () -> memberRepository.searchByBuilderComplex(condition, pageable)), HttpStatus.OK);
+    }
+
+    //무한 스크롤용: total 없이 다음 페이지 여부만 (count 쿼리를 실행하지 않는다)
+    @GetMapping("/v5/members")
+    public ResponseEntity<Slice<MemberTeamDTO>> searchMemberV5(MemberSearchCondition condition, Pageable pageable) {
+        return new ResponseEntity<>(searchCoalescer.execute("searchSlice", condition, pageable,
+            () -> memberRepository.searchSlice(condition, pageable)), HttpStatus.OK);
+    }
+
+    //member_team_view 에서 조회 (team join 없음, dslshop.member-team-view.enabled=true 일 때 최신)
+    @GetMapping("/v6/members")
+    public ResponseEntity<Page<MemberTeamDTO>> searchMemberV6(MemberSearchCondition condition, Pageable pageable) {
+        return new ResponseEntity<>(searchCoalescer.execute("searchView", condition, pageable,
+            () -> memberTeamViewRepository.searchPage(condition, pageable)), HttpStatus.OK);
+    }
+
+    @GetMapping("/v4/members")
+    public ResponseEntity<CursorResult<MemberTeamDTO>> searchMemberV4(MemberSearchCondition condition,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "id") String sort,
+        @RequestParam(defaultValue = "20") int size) {
+
+        MemberCursor memberCursor;
+        try {
+            memberCursor = cursor != null ? MemberCursor.decode(cursor) : MemberCursor.first(MemberCursor.Sort.from(sort));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_SIZE));
+
+        return new ResponseEntity<>(memberRepository.searchByCursor(condition, memberCursor, pageSize), HttpStatus.OK);
     }
 }
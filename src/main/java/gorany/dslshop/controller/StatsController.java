@@ -0,0 +1,70 @@
+package gorany.dslshop.controller;
+
+import gorany.dslshop.cache.MemberCountCache;
+import gorany.dslshop.cache.MemberSearchResultCache;
+import gorany.dslshop.dto.CacheRegionStatsDTO;
+import gorany.dslshop.dto.CacheStatsDTO;
+import gorany.dslshop.dto.TeamStatsDTO;
+import gorany.dslshop.service.TeamStatsRollup;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequiredArgsConstructor
+@RestController
+public class StatsController {
+
+    private final MemberCountCache memberCountCache;
+    private final MemberSearchResultCache memberSearchResultCache;
+    private final EntityManagerFactory emf;
+    private final TeamStatsRollup teamStatsRollup;
+
+    @GetMapping("/stats/member-count-cache")
+    public ResponseEntity<CacheStatsDTO> memberCountCache() {
+        return new ResponseEntity<>(memberCountCache.stats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/stats/member-search-cache")
+    public ResponseEntity<CacheStatsDTO> memberSearchCache() {
+        return new ResponseEntity<>(memberSearchResultCache.stats(), HttpStatus.OK);
+    }
+
+    //팀별 회원 수 / 나이 통계 (group by 대신 이벤트로 유지되는 집계에서 읽는다)
+    @GetMapping("/stats/teams")
+    public ResponseEntity<List<TeamStatsDTO>> teams() {
+        return new ResponseEntity<>(teamStatsRollup.getStats(), HttpStatus.OK);
+    }
+
+    //Hibernate 2차 캐시 / query cache region 별 통계 (hibernate.generate_statistics=true 일 때만 집계된다)
+    @GetMapping("/stats/second-level-cache")
+    public ResponseEntity<List<CacheRegionStatsDTO>> secondLevelCache() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        List<CacheRegionStatsDTO> regions = Stream.concat(
+                Arrays.stream(statistics.getSecondLevelCacheRegionNames()),
+                Stream.of(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME))
+            .distinct()
+            .map(region -> {
+                CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+                if (stats == null) {
+                    stats = statistics.getQueryRegionStatistics(region);
+                }
+                return stats == null ? null : new CacheRegionStatsDTO(region, stats.getHitCount(), stats.getMissCount(),
+                    stats.getPutCount(), stats.getElementCountInMemory());
+            })
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        return new ResponseEntity<>(regions, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,64 @@
+package gorany.dslshop.datasource;
+
+import java.util.concurrent.Callable;
+
+/*
+ * read-your-writes 범위: 쓰기를 커밋한 요청만 잠시 읽기도 primary 로 보낸다. (다른 요청은 계속 replica)
+ * - HTTP 요청마다 ReadYourWritesFilter 가 새 Window 를 연다. 요청 밖(배치, 테스트)에서는 스레드마다 하나.
+ * - 다른 스레드에서 대신 실행하는 쿼리(ParallelCountExecutor)는 propagate() 로 감싸서 호출한 요청의 Window 를 쓴다.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Window> CURRENT = ThreadLocal.withInitial(Window::new);
+
+    private ReadYourWrites() {
+    }
+
+    static Window current() {
+        return CURRENT.get();
+    }
+
+    //새 Window 를 열고 이전 것을 돌려주므로 finally 에서 restore 해야 한다.
+    public static Window open() {
+        Window previous = CURRENT.get();
+        CURRENT.set(new Window());
+        return previous;
+    }
+
+    public static void restore(Window previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    //지금 스레드의 Window 를 task 를 실행하는 스레드로 옮긴다. (끝나면 원래 값으로)
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Window window = CURRENT.get();
+        return () -> {
+            Window previous = CURRENT.get();
+            CURRENT.set(window);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public static final class Window {
+
+        private volatile boolean written;
+        private volatile long lastWriteAt;
+
+        void markWrite(long now) {
+            lastWriteAt = now;
+            written = true;
+        }
+
+        boolean writtenWithin(long now, long millis) {
+            return written && now - lastWriteAt < millis;
+        }
+    }
+}
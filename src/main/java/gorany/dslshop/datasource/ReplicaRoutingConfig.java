@@ -0,0 +1,78 @@
+package gorany.dslshop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import gorany.dslshop.event.EntityChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/*
+ * dslshop.datasource.routing.enabled=true 이면 spring.datasource 를 primary 로,
+ * dslshop.datasource.routing.replicas 를 replica 로 쓰는 DataSource 하나를 등록한다.
+ * primary / replica 풀은 빈으로 등록하지 않는다. (DataSource 빈이 여럿이면 p6spy 가 각각 감싸고 JPA 가 어느 것을 쓸지 모호해진다)
+ * read-your-writes 는 요청 단위: ReadYourWritesFilter 가 요청마다 Window 를 열고, flush 된 엔티티 변경(EntityChangeEvent)이
+ * 있는 트랜잭션이 커밋되면 그 요청의 Window 에 기록한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "dslshop.datasource.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class ReplicaRoutingConfig {
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties primaryProperties, ReplicaRoutingProperties routing) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < routing.getReplicas().size(); i++) {
+            ReplicaRoutingProperties.Replica replica = routing.getReplicas().get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(primaryProperties.determineDriverClassName())
+                .url(replica.getUrl())
+                .username(replica.getUsername())
+                .password(replica.getPassword())
+                .build();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setReadOnly(true);
+            replicas.add(dataSource);
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, routing.getSelection(),
+            routing.getReadYourWritesMillis(), routing.getRetryMillis());
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter() {
+        return new ReadYourWritesFilter();
+    }
+
+    //JPQL bulk 변경도 MemberBulkService 가 EntityChangeEvent 를 발행한다.
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (routingDataSource != null) {
+            routingDataSource.onWrite();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package gorany.dslshop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import gorany.dslshop.event.AfterCompletion;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * read-only 트랜잭션의 커넥션은 replica 에서, 나머지는 primary 에서 가져온다.
+ * - 트랜잭션의 readOnly 여부는 커넥션을 실제로 꺼낼 때 판단하므로 LazyConnectionDataSourceProxy 로 감싸서 써야 한다.
+ * - replica 선택: ROUND_ROBIN 또는 LEAST_LOADED (Hikari 풀의 active 커넥션 수가 가장 적은 replica)
+ * - replica 연결에 실패하면 retryMillis 동안 빼두고 primary 로 보낸다.
+ * - read-your-writes: 실제로 쓰기(flush 된 INSERT / UPDATE / DELETE)를 커밋한 요청만 readYourWritesMillis 동안
+ *   읽기도 primary 로 보낸다. 쓰기 없이 끝난 readOnly 아닌 트랜잭션이나 다른 요청의 읽기는 replica 로 간다. (ReadYourWrites)
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_LOADED
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final long readYourWritesMillis;
+    private final long retryMillis;
+    private final LongSupplier clock;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Selection selection,
+        long readYourWritesMillis, long retryMillis) {
+        this(primary, replicas, selection, readYourWritesMillis, retryMillis, System::currentTimeMillis);
+    }
+
+    ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Selection selection,
+        long readYourWritesMillis, long retryMillis, LongSupplier clock) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).collect(Collectors.toUnmodifiableList());
+        this.selection = selection;
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.retryMillis = retryMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = route();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException e) {
+            replica.downUntil = clock.getAsLong() + retryMillis;
+            log.warn("replica unavailable for {} ms, reading from primary: {}", retryMillis, e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    //null 이면 primary
+    private Replica route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+
+        long now = clock.getAsLong();
+        if (ReadYourWrites.current().writtenWithin(now, readYourWritesMillis)) {
+            return null;
+        }
+
+        List<Replica> available = replicas.stream()
+            .filter(r -> r.downUntil <= now)
+            .collect(Collectors.toList());
+        if (available.isEmpty()) {
+            return null;
+        }
+        if (selection == Selection.LEAST_LOADED) {
+            return available.stream().min(Comparator.comparingInt(Replica::activeConnections)).orElse(null);
+        }
+        return available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+    }
+
+    /*
+     * 지금 요청에서 쓰기가 flush 되었을 때 호출한다. (ReplicaRoutingConfig 의 EntityChangeEvent listener)
+     * 트랜잭션이 커밋되면 그때부터 이 요청의 read-your-writes 시간이 시작된다. 롤백되면 시작하지 않는다.
+     */
+    void onWrite() {
+        ReadYourWrites.Window window = AfterCompletion.batchUntilCommit(this, ReadYourWrites::current,
+            written -> written.markWrite(clock.getAsLong()));
+        if (window == null) {
+            ReadYourWrites.current().markWrite(clock.getAsLong());
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(r -> {
+            if (r.dataSource instanceof HikariDataSource) {
+                ((HikariDataSource) r.dataSource).close();
+            }
+        });
+        if (primary instanceof HikariDataSource) {
+            ((HikariDataSource) primary).close();
+        }
+    }
+
+    private static class Replica {
+
+        private final DataSource dataSource;
+        private volatile long downUntil;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        int activeConnections() {
+            if (dataSource instanceof HikariDataSource) {
+                HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+                return pool != null ? pool.getActiveConnections() : 0;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package gorany.dslshop.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "dslshop.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled;
+    private ReplicaRoutingDataSource.Selection selection = ReplicaRoutingDataSource.Selection.ROUND_ROBIN;
+    //쓰기를 커밋한 요청은 이 시간 동안 읽기도 primary 로 보낸다. (복제 지연 동안 방금 쓴 값을 못 읽는 것 방지)
+    private long readYourWritesMillis = 1000;
+    //연결에 실패한 replica 를 다시 쓰기까지 기다리는 시간
+    private long retryMillis = 5000;
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+        private String username;
+        private String password;
+    }
+}
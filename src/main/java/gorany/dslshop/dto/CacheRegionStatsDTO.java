@@ -0,0 +1,20 @@
+package gorany.dslshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CacheRegionStatsDTO {
+
+    private final String region;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long size;
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
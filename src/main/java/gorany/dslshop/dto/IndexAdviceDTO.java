@@ -0,0 +1,16 @@
+package gorany.dslshop.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class IndexAdviceDTO {
+
+    private final String sql;
+    private final long executions;
+    private final String plan;
+    private final List<String> scannedTables;
+    private final List<String> suggestedIndexes;
+}
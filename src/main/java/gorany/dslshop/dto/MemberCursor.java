@@ -0,0 +1,77 @@
+package gorany.dslshop.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * keyset(seek) 페이징 커서
+ * 마지막으로 내려준 row 의 member_id (+ 정렬 키) 를 담아 opaque token 으로 주고 받는다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MemberCursor {
+
+    public enum Sort {
+        ID, AGE;
+
+        public static Sort from(String value) {
+            return Sort.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Sort sort;
+    private final Long lastMemberId;
+    private final Integer lastAge;
+
+    private MemberCursor(Sort sort, Long lastMemberId, Integer lastAge) {
+        this.sort = sort;
+        this.lastMemberId = lastMemberId;
+        this.lastAge = lastAge;
+    }
+
+    public static MemberCursor first(Sort sort) {
+        return new MemberCursor(sort, null, null);
+    }
+
+    public static MemberCursor after(Sort sort, MemberTeamDTO last) {
+        return new MemberCursor(sort, last.getMemberId(), last.getAge());
+    }
+
+    public boolean isFirst() {
+        return lastMemberId == null;
+    }
+
+    public String encode() {
+        String raw = sort.name() + ":" + lastMemberId + ":" + (lastAge == null ? "" : lastAge);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String token) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + token, e);
+        }
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed cursor: " + token);
+        }
+
+        try {
+            Sort sort = Sort.valueOf(parts[0]);
+            Long lastMemberId = Long.valueOf(parts[1]);
+            Integer lastAge = parts[2].isEmpty() ? null : Integer.valueOf(parts[2]);
+            if (sort == Sort.AGE && lastAge == null) {
+                throw new IllegalArgumentException("Cursor for AGE sort has no age: " + token);
+            }
+            return new MemberCursor(sort, lastMemberId, lastAge);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + token, e);
+        }
+    }
+}
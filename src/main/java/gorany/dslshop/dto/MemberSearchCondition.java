@@ -1,5 +1,7 @@
 package gorany.dslshop.dto;
 
+import static org.springframework.util.StringUtils.hasText;
+
 import lombok.Data;
 
 @Data
@@ -9,4 +11,21 @@ public class MemberSearchCondition {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+    private String usernameContains;
+    private String usernameStartsWith;
+
+    /*
+     * 검색 결과가 같은 조건은 같은 값이 되도록 정리한 복사본 (캐시 key 용)
+     * 공백뿐인 문자열은 검색조건에서 무시되므로 null 로 맞춘다.
+     */
+    public MemberSearchCondition normalize() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(username) ? username : null);
+        normalized.setTeamName(hasText(teamName) ? teamName : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        normalized.setUsernameContains(hasText(usernameContains) ? usernameContains : null);
+        normalized.setUsernameStartsWith(hasText(usernameStartsWith) ? usernameStartsWith : null);
+        return normalized;
+    }
 }
@@ -0,0 +1,24 @@
+package gorany.dslshop.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MemberTeamViewCheckDTO {
+
+    private final long members;
+    private final long viewRows;
+    //member 는 있는데 view 에 없는 행
+    private final long missing;
+    //member 는 없는데 view 에 남은 행
+    private final long orphaned;
+    //값(username, age, team_id, team_name)이 다른 행
+    private final long stale;
+    private final List<Long> sampleMemberIds;
+
+    public boolean isConsistent() {
+        return missing == 0 && orphaned == 0 && stale == 0;
+    }
+}
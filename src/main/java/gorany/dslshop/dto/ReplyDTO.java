@@ -0,0 +1,25 @@
+package gorany.dslshop.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class ReplyDTO {
+
+    private Long replyId;
+    private Long parentId;
+    private String content;
+    private Long userId;
+    private String userName;
+
+    @QueryProjection
+    public ReplyDTO(Long replyId, Long parentId, String content, Long userId, String userName) {
+        this.replyId = replyId;
+        this.parentId = parentId;
+        this.content = content;
+        this.userId = userId;
+        this.userName = userName;
+    }
+}
@@ -0,0 +1,32 @@
+package gorany.dslshop.dto;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * 댓글 트리의 한 노드 (불변)
+ * omittedChildren: maxDepth / maxChildren 제한으로 잘려나간 직계 자식 수
+ */
+@Getter
+@ToString(exclude = "children")
+public class ReplyNode {
+
+    private final Long replyId;
+    private final String content;
+    private final Long userId;
+    private final String userName;
+    private final int depth;
+    private final List<ReplyNode> children;
+    private final int omittedChildren;
+
+    public ReplyNode(ReplyDTO reply, int depth, List<ReplyNode> children, int omittedChildren) {
+        this.replyId = reply.getReplyId();
+        this.content = reply.getContent();
+        this.userId = reply.getUserId();
+        this.userName = reply.getUserName();
+        this.depth = depth;
+        this.children = List.copyOf(children);
+        this.omittedChildren = omittedChildren;
+    }
+}
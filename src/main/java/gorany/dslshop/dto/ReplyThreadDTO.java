@@ -0,0 +1,20 @@
+package gorany.dslshop.dto;
+
+import java.util.List;
+import lombok.Getter;
+
+@Getter
+public class ReplyThreadDTO {
+
+    private final Long boardId;
+    private final int totalReplies;
+    private final List<ReplyNode> replies;
+    private final int omittedReplies;
+
+    public ReplyThreadDTO(Long boardId, int totalReplies, List<ReplyNode> replies, int omittedReplies) {
+        this.boardId = boardId;
+        this.totalReplies = totalReplies;
+        this.replies = List.copyOf(replies);
+        this.omittedReplies = omittedReplies;
+    }
+}
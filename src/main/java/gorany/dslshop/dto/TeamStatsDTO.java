@@ -0,0 +1,20 @@
+package gorany.dslshop.dto;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TeamStatsDTO {
+
+    private final Long teamId;
+    private final String teamName;
+    private final long memberCount;
+    private final long sumAge;
+    private final Double avgAge;
+    private final Integer minAge;
+    private final Integer maxAge;
+    //"20-29" -> 회원 수 (구간이 낮은 순)
+    private final Map<String, Long> ageHistogram;
+}
@@ -0,0 +1,26 @@
+package gorany.dslshop.entity;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/*
+ * 엔티티 매핑에 속하는 Hibernate 리스너를 등록한다.
+ * META-INF/services 로 등록되므로 스프링 빈 구성과 상관없이 (@DataJpaTest 포함) 항상 적용된다.
+ */
+public class EntityListenerIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+        SessionFactoryServiceRegistry serviceRegistry) {
+        serviceRegistry.getService(EventListenerRegistry.class)
+            .appendListeners(EventType.PRE_INSERT, new ReplyPathListener());
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
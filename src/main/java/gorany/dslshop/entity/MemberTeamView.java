@@ -0,0 +1,43 @@
+package gorany.dslshop.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+/*
+ * member + team.name 을 펼쳐 둔 조회 전용 테이블 (join 없이 MemberTeamDTO 검색)
+ * JPA 로는 읽기만 하고, 쓰기는 MemberTeamViewProjector 가 Member / Team 변경을 따라 JDBC 로 한다.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+@Table(name = "member_team_view", indexes = {
+    @Index(name = "idx_member_team_view_username", columnList = "username"),
+    @Index(name = "idx_member_team_view_team_name_age", columnList = "team_name, age"),
+    @Index(name = "idx_member_team_view_age", columnList = "age"),
+    @Index(name = "idx_member_team_view_team_id", columnList = "team_id")
+})
+public class MemberTeamView {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String username;
+    private int age;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "team_name")
+    private String teamName;
+}
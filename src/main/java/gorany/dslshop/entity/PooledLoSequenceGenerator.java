@@ -0,0 +1,34 @@
+package gorany.dslshop.entity;
+
+import java.util.Properties;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/*
+ * pooled-lo 최적화를 쓰는 시퀀스 생성기
+ * - 시퀀스 값 v 하나로 v ~ v + allocationSize - 1 을 메모리에서 꺼내 쓰므로 allocationSize 건마다 시퀀스 조회가 한 번 나간다.
+ * - IDENTITY 와 달리 persist 시점에 insert 를 하지 않아도 되므로 hibernate.jdbc.batch_size 로 insert 가 묶인다.
+ * - allocationSize 는 spring.jpa.properties.dslshop.id.allocation_size 로 바꾼다. (DB 시퀀스의 increment 도 같은 값이어야 한다)
+ */
+public class PooledLoSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "gorany.dslshop.entity.PooledLoSequenceGenerator";
+    public static final String ALLOCATION_SIZE_SETTING = "dslshop.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        if (!params.containsKey(INCREMENT_PARAM)) {
+            int allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+            params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        }
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
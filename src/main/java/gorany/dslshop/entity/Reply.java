@@ -6,33 +6,65 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Entity
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor
 @Builder
-@ToString(exclude = {"board", "user", "children", "parent"})
+@ToString(exclude = {"board", "user", "children", "parent", "path", "pathKey"})
+@Table(indexes = {
+    @Index(name = "idx_reply_board_path_key", columnList = "board_id, path_key"),
+    @Index(name = "idx_reply_board_depth_path_key", columnList = "board_id, depth, path_key"),
+    @Index(name = "idx_reply_parent", columnList = "parent_id")
+})
 public class Reply {
 
+    /*
+     * materialized path: 조상부터 자신까지 reply_id 를 36진수 고정폭(7자리)으로 이어붙인 값
+     * - path 순으로 정렬하면 스레드의 표시 순서(pre-order, 형제는 작성순)가 된다.
+     * - X 의 모든 자손은 path 가 X.path 로 시작하는 row 들이다.
+     * path 는 depth 에 비례해 길어지므로 (최대 70,007자) 인덱스에는 앞쪽 PATH_KEY_SEGMENTS 단계만 자른
+     * path_key 를 쓴다. path_key 로 (board_id, path_key) range scan 을 하고 그보다 깊은 부분은 path 로 거른다.
+     */
+    public static final int PATH_SEGMENT_LENGTH = 7;
+    public static final int MAX_DEPTH = 10_000;
+    public static final int PATH_KEY_SEGMENTS = 64;
+    public static final int PATH_KEY_LENGTH = PATH_SEGMENT_LENGTH * PATH_KEY_SEGMENTS;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "reply_seq")
+    @GenericGenerator(name = "reply_seq", strategy = PooledLoSequenceGenerator.STRATEGY,
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "reply_seq"))
     @Column(name = "reply_id")
     private Long id;
 
     private String content;
 
+    //인덱스 없음 (path_key 로 찾은 범위 안에서만 비교한다)
+    @Column(length = PATH_SEGMENT_LENGTH * (MAX_DEPTH + 1))
+    private String path;
+
+    @Column(name = "path_key", length = PATH_KEY_LENGTH)
+    private String pathKey;
+
+    private int depth;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "board_id")
     private Board board;
@@ -55,6 +87,10 @@ public class Reply {
         r.user = user;
         r.parent = reply;
         r.content = content;
+        r.depth = reply.getDepth() + 1;
+        if (r.depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Reply thread is deeper than " + MAX_DEPTH);
+        }
         return r;
     }
 
@@ -65,4 +101,43 @@ public class Reply {
         r.content = content;
         return r;
     }
+
+    /*
+     * id 가 생성된 뒤에 path 를 완성한다.
+     * 시퀀스로 id 를 미리 받으므로 insert 직전(ReplyPathListener)에 채워서 insert 한 번에 같이 나간다.
+     * 부모의 path 가 아직 없으면(backfill 전 데이터) 비워두고 ReplyPathBackfillJob 이 채운다.
+     */
+    public void assignPath() {
+        if (parent == null) {
+            depth = 0;
+            path = pathSegment(id);
+            pathKey = pathKey(path);
+        } else if (parent.getPath() != null) {
+            depth = parent.getDepth() + 1;
+            path = parent.getPath() + pathSegment(id);
+            pathKey = pathKey(path);
+        }
+    }
+
+    public static String pathSegment(Long id) {
+        String segment = Long.toString(id, 36);
+        if (segment.length() > PATH_SEGMENT_LENGTH) {
+            throw new IllegalStateException("reply_id " + id + " does not fit in a path segment");
+        }
+        return "0".repeat(PATH_SEGMENT_LENGTH - segment.length()) + segment;
+    }
+
+    /*
+     * path 의 앞쪽 PATH_KEY_LENGTH 자
+     * 자르기만 하므로 순서가 유지된다: a <= b 이면 pathKey(a) <= pathKey(b)
+     * 따라서 from <= path < to 인 row 는 모두 pathKey(from) <= path_key <= pathKey(to) 범위에 있다.
+     */
+    public static String pathKey(String path) {
+        return path.length() > PATH_KEY_LENGTH ? path.substring(0, PATH_KEY_LENGTH) : path;
+    }
+
+    //path 로 시작하는 값의 상한 (36진수 문자 0-9a-z 다음 문자)
+    public static String pathUpperBound(String path) {
+        return path + "{";
+    }
 }
@@ -0,0 +1,38 @@
+package gorany.dslshop.entity;
+
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+
+/*
+ * insert 직전에 Reply 의 path / path_key / depth 를 채운다.
+ * 엔티티 필드만 바꾸면 이미 만들어진 insert state 에는 반영되지 않으므로 state 배열도 같이 고친다.
+ * 부모는 먼저 persist 되므로 (insert 순서 = persist 순서) 이 시점에 부모의 path 가 이미 채워져 있다.
+ */
+public class ReplyPathListener implements PreInsertEventListener {
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        if (!(event.getEntity() instanceof Reply)) {
+            return false;
+        }
+
+        Reply reply = (Reply) event.getEntity();
+        if (reply.getId() == null) {
+            return false;
+        }
+        reply.assignPath();
+
+        String[] propertyNames = event.getPersister().getPropertyNames();
+        Object[] state = event.getState();
+        for (int i = 0; i < propertyNames.length; i++) {
+            if ("path".equals(propertyNames[i])) {
+                state[i] = reply.getPath();
+            } else if ("pathKey".equals(propertyNames[i])) {
+                state[i] = reply.getPathKey();
+            } else if ("depth".equals(propertyNames[i])) {
+                state[i] = reply.getDepth();
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package gorany.dslshop.event;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * 현재 트랜잭션이 끝날 때(commit / rollback) 실행할 작업을 등록한다.
+ * - runOnce: 끝나면 결과와 상관없이 한 번 (flush 직후 무효화한 캐시가 같은 트랜잭션의
+ *   아직 커밋되지 않은 결과로 다시 채워지는 것을 막는 용도)
+ * - batchUntilCommit: 트랜잭션 동안 변경을 모았다가 커밋되면 반영, 롤백되면 버린다. (읽기 모델 / 색인 용도)
+ */
+public final class AfterCompletion {
+
+    private AfterCompletion() {
+    }
+
+    public static void runOnce(Object key, Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+            || TransactionSynchronizationManager.hasResource(key)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(key, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                task.run();
+            }
+        });
+    }
+
+    /*
+     * 현재 트랜잭션에서 key 로 모으고 있는 변경 묶음 (처음이면 create 로 만들어 등록한다)
+     * 커밋되면 onCommit 으로 한 번 반영하고, 롤백되면 버린다. 어느 쪽이든 트랜잭션이 끝나면 묶음은 풀린다.
+     * 트랜잭션 밖이면 null: 호출한 쪽에서 바로 반영한다.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T batchUntilCommit(Object key, Supplier<T> create, Consumer<T> onCommit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        T batch = (T) TransactionSynchronizationManager.getResource(key);
+        if (batch != null) {
+            return batch;
+        }
+
+        T created = create.get();
+        TransactionSynchronizationManager.bindResource(key, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                if (status == STATUS_COMMITTED) {
+                    onCommit.accept(created);
+                }
+            }
+        });
+        return created;
+    }
+
+    //현재 트랜잭션에 key 로 모아둔 (아직 커밋되지 않은) 변경이 있는지
+    public static boolean hasBatch(Object key) {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+            && TransactionSynchronizationManager.hasResource(key);
+    }
+}
@@ -0,0 +1,79 @@
+package gorany.dslshop.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/*
+ * Hibernate flush 시점에 INSERT / UPDATE / DELETE 된 엔티티를 알린다.
+ * JPQL bulk 연산(factory.update(), factory.delete())은 영속성 컨텍스트를 거치지 않으므로 발행되지 않는다.
+ * INSERT 는 insert 된 값, UPDATE 는 변경 후 값을 state 로 넘긴다. (엔티티는 그 뒤에 또 바뀌었을 수 있다)
+ * UPDATE 는 변경 전 값, DELETE 는 삭제된 값을 oldState 로 함께 넘긴다. (INSERT 나 알 수 없는 경우 null)
+ */
+@Getter
+@ToString(exclude = {"entity", "propertyNames", "state", "oldState"})
+public class EntityChangeEvent {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Type type;
+    private final Class<?> entityType;
+    private final Object id;
+    private final Object entity;
+    private final String[] propertyNames;
+    private final Object[] state;
+    private final Object[] oldState;
+
+    public EntityChangeEvent(Type type, Class<?> entityType, Object id, Object entity) {
+        this(type, entityType, id, entity, null, null, null);
+    }
+
+    public EntityChangeEvent(Type type, Class<?> entityType, Object id, Object entity,
+        String[] propertyNames, Object[] state, Object[] oldState) {
+        this.type = type;
+        this.entityType = entityType;
+        this.id = id;
+        this.entity = entity;
+        this.propertyNames = propertyNames;
+        this.state = state;
+        this.oldState = oldState;
+    }
+
+    public boolean hasState() {
+        return propertyNames != null && state != null;
+    }
+
+    public boolean hasOldState() {
+        return propertyNames != null && oldState != null;
+    }
+
+    //flush 된 property 값 (state 가 없으면 IllegalStateException)
+    public Object getValue(String property) {
+        if (!hasState()) {
+            throw new IllegalStateException("state is not available: " + this);
+        }
+        return valueOf(state, property);
+    }
+
+    //변경 전 property 값 (oldState 가 없으면 IllegalStateException)
+    public Object getOldValue(String property) {
+        if (!hasOldState()) {
+            throw new IllegalStateException("old state is not available: " + this);
+        }
+        return valueOf(oldState, property);
+    }
+
+    private Object valueOf(Object[] values, String property) {
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (propertyNames[i].equals(property)) {
+                return values[i];
+            }
+        }
+        throw new IllegalArgumentException("unknown property: " + property);
+    }
+
+    public boolean isFor(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+}
@@ -0,0 +1,68 @@
+package gorany.dslshop.event;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/*
+ * Hibernate post insert/update/delete 이벤트를 스프링 ApplicationEvent(EntityChangeEvent)로 옮겨준다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final transient EntityManagerFactory emf;
+    private final transient ApplicationEventPublisher publisher;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(EntityChangeEvent.Type.INSERT, event.getPersister(), event.getId(), event.getEntity(),
+            event.getState(), null);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(EntityChangeEvent.Type.UPDATE, event.getPersister(), event.getId(), event.getEntity(),
+            event.getState(), event.getOldState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(EntityChangeEvent.Type.DELETE, event.getPersister(), event.getId(), event.getEntity(),
+            null, event.getDeletedState());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void publish(EntityChangeEvent.Type type, EntityPersister persister, Object id, Object entity,
+        Object[] state, Object[] oldState) {
+        publisher.publishEvent(new EntityChangeEvent(type, persister.getMappedClass(), id, entity,
+            persister.getPropertyNames(), state, oldState));
+    }
+}
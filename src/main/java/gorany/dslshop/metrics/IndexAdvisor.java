@@ -0,0 +1,124 @@
+package gorany.dslshop.metrics;
+
+import gorany.dslshop.dto.IndexAdviceDTO;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/*
+ * SelectCapture 가 모은 select 문을 H2 EXPLAIN 으로 돌려서 인덱스 없이 full scan 하는 테이블을 찾는다.
+ * - H2 plan 에서 인덱스를 못 쓰는 테이블에는 PUBLIC.MEMBER.tableScan 같은 주석이 붙는다.
+ * - 추천 인덱스: 그 테이블의 where 조건 컬럼 중 등치(=, IN) 컬럼을 먼저, 범위 조건 컬럼 하나를 마지막에 둔 composite 인덱스
+ * - 파라미터는 null 로 바인딩한다. (plan 은 prepare 시점에 조건의 모양만 보고 정해진다)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IndexAdvisor {
+
+    private static final Pattern TABLE_SCAN =
+        Pattern.compile("(\\w+)\\.(\\w+) (\\w+)\\s*/\\* \\1\\.\\2\\.tableScan");
+    private static final Pattern CONDITION =
+        Pattern.compile("\\b(\\w+)\\.(\\w+)\\s*(=|>=|<=|<>|>|<|\\bIN\\b|\\bLIKE\\b|\\bBETWEEN\\b)\\s*(\\w+\\.\\w+\\b)?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Set<String> RANGE_OPERATORS = Set.of(">=", "<=", ">", "<", "LIKE", "BETWEEN");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SelectCapture capture;
+
+    //full scan 하는 쿼리부터, 실행 횟수가 많은 순으로
+    public List<IndexAdviceDTO> analyze() {
+        List<IndexAdviceDTO> advice = new ArrayList<>();
+        capture.snapshot().forEach((sql, executions) -> {
+            String plan = explain(sql);
+            if (plan == null) {
+                return;
+            }
+            Map<String, String> scanned = scannedTables(plan);
+            advice.add(new IndexAdviceDTO(sql, executions, plan,
+                new ArrayList<>(scanned.values()), suggest(plan, scanned)));
+        });
+        advice.sort(Comparator.comparing((IndexAdviceDTO a) -> a.getScannedTables().isEmpty())
+            .thenComparing(IndexAdviceDTO::getExecutions, Comparator.reverseOrder()));
+        return advice;
+    }
+
+    private String explain(String sql) {
+        try {
+            return jdbcTemplate.query("EXPLAIN " + sql, (PreparedStatement ps) -> {
+                int parameters = ps.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    ps.setObject(i, null);
+                }
+            }, (ResultSet rs) -> rs.next() ? rs.getString(1) : null);
+        } catch (DataAccessException e) {
+            log.debug("cannot explain {}", sql, e);
+            return null;
+        }
+    }
+
+    //alias -> table
+    static Map<String, String> scannedTables(String plan) {
+        Map<String, String> scanned = new LinkedHashMap<>();
+        Matcher matcher = TABLE_SCAN.matcher(plan);
+        while (matcher.find()) {
+            scanned.put(matcher.group(3).toUpperCase(Locale.ROOT), matcher.group(2).toUpperCase(Locale.ROOT));
+        }
+        return scanned;
+    }
+
+    static List<String> suggest(String plan, Map<String, String> scanned) {
+        int where = plan.toUpperCase(Locale.ROOT).indexOf("WHERE");
+        if (scanned.isEmpty() || where < 0) {
+            return List.of();
+        }
+
+        Map<String, Set<String>> equalities = new LinkedHashMap<>();
+        Map<String, Set<String>> ranges = new LinkedHashMap<>();
+        Matcher matcher = CONDITION.matcher(plan.substring(where));
+        while (matcher.find()) {
+            //a.x = b.y 는 join 조건
+            if (matcher.group(4) != null) {
+                continue;
+            }
+            String alias = matcher.group(1).toUpperCase(Locale.ROOT);
+            if (!scanned.containsKey(alias)) {
+                continue;
+            }
+            String column = matcher.group(2).toLowerCase(Locale.ROOT);
+            String operator = matcher.group(3).toUpperCase(Locale.ROOT);
+            (RANGE_OPERATORS.contains(operator) ? ranges : equalities)
+                .computeIfAbsent(alias, a -> new LinkedHashSet<>())
+                .add(column);
+        }
+
+        List<String> suggestions = new ArrayList<>();
+        scanned.forEach((alias, table) -> {
+            List<String> columns = new ArrayList<>(equalities.getOrDefault(alias, Set.of()));
+            ranges.getOrDefault(alias, Set.of()).stream()
+                .filter(column -> !columns.contains(column))
+                .findFirst()
+                .ifPresent(columns::add);
+            if (!columns.isEmpty()) {
+                String tableName = table.toLowerCase(Locale.ROOT);
+                suggestions.add("create index idx_" + tableName + "_" + String.join("_", columns)
+                    + " on " + tableName + " (" + String.join(", ", columns) + ")");
+            }
+        });
+        return suggestions;
+    }
+}
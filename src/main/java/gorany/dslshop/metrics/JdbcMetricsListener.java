@@ -0,0 +1,70 @@
+package gorany.dslshop.metrics;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/*
+ * p6spy 가 감싼 JDBC statement 마다 지연시간(dslshop.jdbc.statement)과 읽은 row 수(dslshop.jdbc.rows)를 기록한다.
+ * kind 태그로 content(select) 와 count(select count) 쿼리를 나눈다.
+ * 요청 / 트랜잭션 statement 수와 예산도 여기서 StatementGuard 로 넘긴다. (statement 를 세는 곳은 여기 하나, SelectCapture 는 SQL 만 모은다)
+ * p6spy-spring-boot-starter 가 JdbcEventListener 빈을 찾아서 등록한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class JdbcMetricsListener extends JdbcEventListener {
+
+    private final MeterRegistry registry;
+    private final StatementGuard guard;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        Timer.builder("dslshop.jdbc.statement")
+            .tag("query", QueryContext.currentQueryName())
+            .tag("kind", kindOf(statementInformation.getSql()))
+            .tag("outcome", e == null ? "success" : "error")
+            .register(registry)
+            .record(timeElapsedNanos, TimeUnit.NANOSECONDS);
+        //FAIL 모드면 예외가 나므로 지표를 먼저 남긴다.
+        guard.onStatement(statementInformation.getSql());
+    }
+
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        //currRow 는 next() 가 true 일 때마다 증가하고 -1 부터 시작한다.
+        DistributionSummary.builder("dslshop.jdbc.rows")
+            .tag("query", QueryContext.currentQueryName())
+            .register(registry)
+            .record(Math.max(0, resultSetInformation.getCurrRow() + 1));
+    }
+
+    //use_sql_comments 로 붙는 앞쪽 /* ... */ 주석은 건너뛴다.
+    static String kindOf(String sql) {
+        if (sql == null) {
+            return "other";
+        }
+        String statement = sql.trim();
+        while (statement.startsWith("/*") && statement.contains("*/")) {
+            statement = statement.substring(statement.indexOf("*/") + 2).trim();
+        }
+        statement = statement.toLowerCase(Locale.ROOT);
+
+        if (statement.startsWith("select count(")) {
+            return "count";
+        }
+        for (String kind : new String[]{"select", "insert", "update", "delete"}) {
+            if (statement.startsWith(kind)) {
+                return kind;
+            }
+        }
+        return "other";
+    }
+}
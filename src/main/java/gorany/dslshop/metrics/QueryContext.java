@@ -0,0 +1,59 @@
+package gorany.dslshop.metrics;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/*
+ * 현재 스레드의 쿼리 실행 정보
+ * - queryName: 실행 중인 repository 메소드 (JDBC statement 지표에 태그로 붙인다)
+ * - statement 수는 열려 있는 StatementScope (요청 / 트랜잭션 / 테스트) 가 센다.
+ * 다른 스레드에서 대신 실행하는 쿼리(ParallelCountExecutor)는 propagate() 로 감싸서 호출한 스레드의 정보를 그대로 쓴다.
+ */
+public final class QueryContext {
+
+    public static final String NONE = "none";
+
+    private static final ThreadLocal<String> QUERY_NAME = new ThreadLocal<>();
+
+    private QueryContext() {
+    }
+
+    public static String currentQueryName() {
+        String name = QUERY_NAME.get();
+        return name != null ? name : NONE;
+    }
+
+    //이전 이름을 돌려주므로 finally 에서 restore 해야 한다.
+    static String enter(String queryName) {
+        String previous = QUERY_NAME.get();
+        QUERY_NAME.set(queryName);
+        return previous;
+    }
+
+    static void restore(String previous) {
+        if (previous == null) {
+            QUERY_NAME.remove();
+        } else {
+            QUERY_NAME.set(previous);
+        }
+    }
+
+    /*
+     * 지금 스레드의 queryName / 열린 StatementScope 를 task 를 실행하는 스레드로 옮긴다.
+     * task 가 끝나면 실행한 스레드의 원래 값으로 되돌린다. (풀 스레드에 남지 않게)
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        String queryName = QUERY_NAME.get();
+        List<StatementScope> scopes = StatementScope.openScopes();
+        return () -> {
+            String previousName = enter(queryName);
+            List<StatementScope> previousScopes = StatementScope.attach(scopes);
+            try {
+                return task.call();
+            } finally {
+                StatementScope.attach(previousScopes);
+                restore(previousName);
+            }
+        };
+    }
+}
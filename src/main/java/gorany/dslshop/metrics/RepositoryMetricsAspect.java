@@ -0,0 +1,73 @@
+package gorany.dslshop.metrics;
+
+import gorany.dslshop.dto.CursorResult;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+/*
+ * repository 메소드 단위 지연시간(dslshop.repository.query)과 반환 row 수(dslshop.repository.rows)
+ * 실행 중인 메소드 이름을 QueryContext 에 올려두므로 JdbcMetricsListener 가 statement 를 메소드별로 나눠 기록한다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry registry;
+
+    @Around("execution(public * gorany.dslshop.repository.MemberRepositoryCustomImpl.*(..))"
+        + " || execution(public * gorany.dslshop.repository.MemberJpaRepository.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String query = joinPoint.getSignature().getDeclaringType().getSimpleName()
+            + "." + joinPoint.getSignature().getName();
+        String previous = QueryContext.enter(query);
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "success";
+        try {
+            Object result = joinPoint.proceed();
+            long rows = rows(result);
+            if (rows >= 0) {
+                DistributionSummary.builder("dslshop.repository.rows")
+                    .tag("query", query)
+                    .register(registry)
+                    .record(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("dslshop.repository.query")
+                .tag("query", query)
+                .tag("outcome", outcome)
+                .register(registry));
+            QueryContext.restore(previous);
+        }
+    }
+
+    //row 수를 알 수 없는 반환 타입이면 -1
+    static long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof CursorResult) {
+            return ((CursorResult<?>) result).getContent().size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,66 @@
+package gorany.dslshop.metrics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * 애플리케이션이 실행한 select 문(파라미터는 ? 그대로)과 실행 횟수를 모아둔다. (IndexAdvisor 가 EXPLAIN 한다)
+ * 서로 다른 SQL 은 max-statements 개까지만 모은다.
+ */
+@Component
+public class SelectCapture extends JdbcEventListener {
+
+    private final boolean enabled;
+    private final int maxStatements;
+    private final Map<String, LongAdder> statements = new ConcurrentHashMap<>();
+
+    public SelectCapture(
+        @Value("${dslshop.index-advisor.enabled:false}") boolean enabled,
+        @Value("${dslshop.index-advisor.max-statements:500}") int maxStatements) {
+        this.enabled = enabled;
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (!enabled || e != null || sql == null) {
+            return;
+        }
+        String kind = JdbcMetricsListener.kindOf(sql);
+        if (!"select".equals(kind) && !"count".equals(kind)) {
+            return;
+        }
+
+        String key = sql.replaceAll("\\s+", " ").trim();
+        LongAdder executions = statements.get(key);
+        if (executions == null) {
+            if (statements.size() >= maxStatements) {
+                return;
+            }
+            executions = statements.computeIfAbsent(key, k -> new LongAdder());
+        }
+        executions.increment();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //SQL -> 실행 횟수
+    public Map<String, Long> snapshot() {
+        Map<String, Long> copy = new ConcurrentHashMap<>();
+        statements.forEach((sql, executions) -> copy.put(sql, executions.sum()));
+        return copy;
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+}
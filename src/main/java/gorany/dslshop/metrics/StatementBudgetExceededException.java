@@ -0,0 +1,8 @@
+package gorany.dslshop.metrics;
+
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
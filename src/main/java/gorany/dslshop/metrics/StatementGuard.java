@@ -0,0 +1,84 @@
+package gorany.dslshop.metrics;
+
+import gorany.dslshop.event.AfterCompletion;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * HTTP 요청 / 트랜잭션 단위 statement 예산
+ * - statement 는 JdbcMetricsListener 가 p6spy 이벤트마다 onStatement 로 넘겨준다.
+ * - 요청 scope 는 StatementsPerRequestFilter 가 연다. (꺼져 있으면 예산 없이 statement 수만 센다)
+ *   트랜잭션 scope 는 트랜잭션의 첫 statement 에서 열고 트랜잭션이 끝날 때 닫는다.
+ * - LOG: scope 가 닫힐 때 위반 내용을 남긴다. FAIL: 위반하는 statement 에서 바로 StatementBudgetExceededException
+ * - 테스트에서 직접 연 StatementScope 는 enabled 와 상관없이 항상 기록된다.
+ */
+@Slf4j
+@Component
+public class StatementGuard {
+
+    public enum Mode {
+        LOG, FAIL
+    }
+
+    private final boolean enabled;
+    private final Mode mode;
+    private final int requestBudget;
+    private final int transactionBudget;
+    private final int repeatThreshold;
+
+    public StatementGuard(
+        @Value("${dslshop.statement-guard.enabled:false}") boolean enabled,
+        @Value("${dslshop.statement-guard.mode:LOG}") Mode mode,
+        @Value("${dslshop.statement-guard.request-budget:30}") int requestBudget,
+        @Value("${dslshop.statement-guard.transaction-budget:50}") int transactionBudget,
+        @Value("${dslshop.statement-guard.repeat-threshold:5}") int repeatThreshold) {
+        this.enabled = enabled;
+        this.mode = mode;
+        this.requestBudget = requestBudget;
+        this.transactionBudget = transactionBudget;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    StatementScope openRequestScope(String name) {
+        return enabled
+            ? StatementScope.open(name, requestBudget, repeatThreshold)
+            : StatementScope.open(name, StatementScope.UNLIMITED, StatementScope.UNLIMITED);
+    }
+
+    void close(StatementScope scope) {
+        scope.close();
+        if (scope.isViolated() && mode == Mode.LOG) {
+            log.warn("statement budget exceeded {}", scope.report());
+        }
+    }
+
+    void onStatement(String sql) {
+        if (enabled) {
+            openTransactionScope();
+        }
+
+        List<StatementScope> violations = StatementScope.record(sql);
+        if (!violations.isEmpty() && mode == Mode.FAIL) {
+            StatementScope first = violations.get(0);
+            log.warn("statement budget exceeded {}", first.report());
+            throw new StatementBudgetExceededException(first.report());
+        }
+    }
+
+    private void openTransactionScope() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+            || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        StatementScope scope = StatementScope.open("transaction " + name, transactionBudget, repeatThreshold);
+        AfterCompletion.runOnce(this, () -> close(scope));
+    }
+}
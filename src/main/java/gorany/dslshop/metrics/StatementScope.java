@@ -0,0 +1,158 @@
+package gorany.dslshop.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+ * 열려 있는 동안 현재 스레드에서 실행된 JDBC statement 를 센다. (JdbcMetricsListener -> StatementGuard 가 기록한다)
+ * - HTTP 요청 scope 는 StatementsPerRequestFilter 가 연다. (dslshop.http.statements 도 이 scope 의 수)
+ * - budget 을 넘거나, 같은 select 가 repeatThreshold 번 이상 반복되면(N+1 의심) 위반으로 본다.
+ * - 테스트에서는 open(name) 으로 열고 assert* 로 확인한다.
+ * - QueryContext.propagate 로 감싼 작업은 다른 스레드에서 실행되어도 호출한 스레드의 scope 에 기록된다.
+ *
+ *   try (StatementScope scope = StatementScope.open("members with team")) {
+ *       ...
+ *       scope.assertStatementCount(1);
+ *       scope.assertNoNPlusOne();
+ *   }
+ */
+public class StatementScope implements AutoCloseable {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final ThreadLocal<List<StatementScope>> OPEN = ThreadLocal.withInitial(ArrayList::new);
+
+    private final String name;
+    private final int budget;
+    private final int repeatThreshold;
+    private final Map<String, Integer> selects = new LinkedHashMap<>();
+    private int count;
+    private boolean violated;
+
+    private StatementScope(String name, int budget, int repeatThreshold) {
+        this.name = name;
+        this.budget = budget;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    //테스트용: budget 없이 열고, 같은 select 가 두 번 이상이면 N+1 로 본다.
+    public static StatementScope open(String name) {
+        return open(name, UNLIMITED, 2);
+    }
+
+    public static StatementScope open(String name, int budget, int repeatThreshold) {
+        StatementScope scope = new StatementScope(name, budget, repeatThreshold);
+        OPEN.get().add(scope);
+        return scope;
+    }
+
+    //현재 스레드에 열린 scope 들 (복사본)
+    static List<StatementScope> openScopes() {
+        return new ArrayList<>(OPEN.get());
+    }
+
+    //현재 스레드의 열린 scope 를 바꾸고 이전 것을 돌려준다. (QueryContext.propagate)
+    static List<StatementScope> attach(List<StatementScope> scopes) {
+        List<StatementScope> previous = OPEN.get();
+        OPEN.set(scopes);
+        return previous;
+    }
+
+    /*
+     * 열려 있는 모든 scope 에 statement 를 기록하고, 이번 statement 로 처음 위반한 scope 들을 돌려준다.
+     */
+    static List<StatementScope> record(String sql) {
+        List<StatementScope> scopes = OPEN.get();
+        if (scopes.isEmpty()) {
+            return List.of();
+        }
+
+        boolean select = "select".equals(JdbcMetricsListener.kindOf(sql));
+        String normalized = select ? normalize(sql) : null;
+        List<StatementScope> violations = new ArrayList<>(1);
+        for (StatementScope scope : scopes) {
+            if (scope.add(normalized)) {
+                violations.add(scope);
+            }
+        }
+        return violations;
+    }
+
+    //같은 쿼리가 파라미터만 다르게 반복되는 것을 묶기 위해 리터럴을 ? 로 바꾼다.
+    static String normalize(String sql) {
+        return sql.replaceAll("'(?:[^']|'')*'", "?")
+            .replaceAll("\\b\\d+\\b", "?")
+            .replaceAll("\\s+", " ")
+            .trim();
+    }
+
+    //다른 스레드(QueryContext.propagate)에서도 기록하므로 동기화한다.
+    private synchronized boolean add(String select) {
+        count++;
+        boolean repeated = false;
+        if (select != null && repeatThreshold != UNLIMITED) {
+            repeated = selects.merge(select, 1, Integer::sum) >= repeatThreshold;
+        }
+        if (!violated && (count > budget || repeated)) {
+            violated = true;
+            return true;
+        }
+        return false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isViolated() {
+        return violated;
+    }
+
+    //N+1 의심: repeatThreshold 번 이상 실행된 select -> 실행 횟수
+    public Map<String, Integer> getSuspectedNPlusOne() {
+        return selects.entrySet().stream()
+            .filter(e -> e.getValue() >= repeatThreshold)
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    public void assertStatementCount(int expected) {
+        if (count != expected) {
+            throw new AssertionError("expected " + expected + " statements but was " + report());
+        }
+    }
+
+    public void assertAtMost(int max) {
+        if (count > max) {
+            throw new AssertionError("expected at most " + max + " statements but was " + report());
+        }
+    }
+
+    public void assertNoNPlusOne() {
+        if (!getSuspectedNPlusOne().isEmpty()) {
+            throw new AssertionError("suspected N+1 in " + report());
+        }
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder()
+            .append('[').append(name).append("] ").append(count).append(" statements");
+        if (budget != UNLIMITED) {
+            sb.append(" (budget ").append(budget).append(')');
+        }
+        getSuspectedNPlusOne().forEach((sql, times) ->
+            sb.append("\n  suspected N+1 x").append(times).append(": ").append(sql));
+        return sb.toString();
+    }
+
+    @Override
+    public void close() {
+        OPEN.get().remove(this);
+    }
+}
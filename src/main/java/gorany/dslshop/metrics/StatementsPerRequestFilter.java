@@ -0,0 +1,47 @@
+package gorany.dslshop.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/*
+ * HTTP 요청 하나를 StatementScope 로 감싸서 실행된 JDBC statement 수를 기록한다. (dslshop.http.statements, uri 는 매핑된 패턴)
+ * 같은 scope 로 StatementGuard 가 요청 예산 / N+1 을 판단한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatementsPerRequestFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+    private final StatementGuard guard;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        StatementScope scope = guard.openRequestScope(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            guard.close(scope);
+            int statements = scope.getCount();
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("dslshop.http.statements")
+                .tag("uri", uri != null ? uri.toString() : "UNKNOWN")
+                .register(registry)
+                .record(statements);
+        }
+    }
+}
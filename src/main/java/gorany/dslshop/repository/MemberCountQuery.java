@@ -0,0 +1,60 @@
+package gorany.dslshop.repository;
+
+import static gorany.dslshop.entity.QMember.member;
+import static gorany.dslshop.entity.QTeam.team;
+import static gorany.dslshop.repository.MemberSearchPredicates.ageGoe;
+import static gorany.dslshop.repository.MemberSearchPredicates.ageLoe;
+import static gorany.dslshop.repository.MemberSearchPredicates.needsTeam;
+import static gorany.dslshop.repository.MemberSearchPredicates.teamNameEq;
+import static gorany.dslshop.repository.MemberSearchPredicates.usernameEq;
+import static gorany.dslshop.repository.MemberSearchPredicates.usernameMatch;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.dto.MemberSearchCondition;
+import java.util.Set;
+
+/*
+ * 검색조건으로부터 최소한의 count 쿼리를 만든다.
+ * - count(member.id) 만 센다. (DTO projection 불필요)
+ * - team 조건이 없으면 join 을 하지 않는다. (left join 이므로 row 수는 member 기준으로 같다)
+ * - team 조건이 있으면 team.name = ? 가 null 을 걸러내므로 inner join 으로 충분하다.
+ * - offset / limit 은 붙이지 않는다.
+ */
+final class MemberCountQuery {
+
+    private MemberCountQuery() {
+    }
+
+    static JPAQuery<Long> of(JPAQueryFactory factory, MemberSearchCondition condition) {
+        return of(factory, condition, null);
+    }
+
+    //candidates: username 색인 후보 id (null 이면 LIKE)
+    static JPAQuery<Long> of(JPAQueryFactory factory, MemberSearchCondition condition, Set<Long> candidates) {
+        JPAQuery<Long> query = factory
+            .select(member.id.count())
+            .from(member);
+
+        if (needsTeam(condition)) {
+            query.join(member.team, team);
+        }
+
+        return query.where(
+            usernameEq(condition.getUsername()),
+            teamNameEq(condition.getTeamName()),
+            ageGoe(condition.getAgeGoe()),
+            ageLoe(condition.getAgeLoe()),
+            usernameMatch(condition, candidates)
+        );
+    }
+
+    static long count(JPAQueryFactory factory, MemberSearchCondition condition) {
+        return count(factory, condition, null);
+    }
+
+    static long count(JPAQueryFactory factory, MemberSearchCondition condition, Set<Long> candidates) {
+        Long count = of(factory, condition, candidates).fetchOne();
+        return count != null ? count : 0L;
+    }
+}
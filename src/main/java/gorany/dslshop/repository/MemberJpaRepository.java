@@ -4,8 +4,8 @@ import static gorany.dslshop.entity.QMember.*;
 import static gorany.dslshop.entity.QTeam.*;
 import static org.springframework.util.StringUtils.*;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import gorany.dslshop.dto.MemberSearchCondition;
 import gorany.dslshop.dto.MemberTeamDTO;
@@ -13,23 +13,42 @@ import gorany.dslshop.dto.QMemberTeamDTO;
 import gorany.dslshop.entity.Member;
 import gorany.dslshop.entity.QMember;
 import gorany.dslshop.entity.QTeam;
+import gorany.dslshop.search.UsernameTrigramIndex;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import javax.persistence.EntityManager;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 @Repository
+@Transactional(readOnly = true)
 public class MemberJpaRepository {
 
+    //findAllByIds 의 IN 절 최대 크기 (2의 거듭제곱)
+    static final int MAX_IN_SIZE = 256;
+
     private final EntityManager em;
     private final JPAQueryFactory factory;
+    private final UsernameTrigramIndex usernameIndex;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, UsernameTrigramIndex usernameIndex) {
         this.em = em;
         this.factory = new JPAQueryFactory(em);
+        this.usernameIndex = usernameIndex;
     }
 
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -38,6 +57,66 @@ public class MemberJpaRepository {
         return Optional.ofNullable(em.find(Member.class, id));
     }
 
+    /*
+     * 여러 id 를 한 번에 조회 (id 마다 em.find 하는 대신)
+     * - 이미 영속성 컨텍스트에 있는 회원은 조회하지 않는다.
+     * - 나머지는 MAX_IN_SIZE 건씩 IN 으로 조회하고, IN 절 크기를 2의 거듭제곱으로 맞춰서(마지막 id 반복)
+     *   Hibernate QueryPlanCache / H2 의 statement 캐시가 크기별로 몇 개의 SQL 만 재사용하게 한다.
+     * - 결과는 입력 순서 (중복 id 는 한 번, 없는 id 는 빠진다)
+     */
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        LinkedHashSet<Long> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+
+        Map<Long, Member> found = new HashMap<>(distinct.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinct) {
+            Object managed = session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+            if (managed != null) {
+                //remove() 된 엔티티는 em.find 처럼 없는 것으로 본다.
+                if (session.getPersistenceContext().getEntry(managed).getStatus() != Status.DELETED) {
+                    found.put(id, (Member) managed);
+                }
+            } else {
+                missing.add(id);
+            }
+        }
+
+        for (int from = 0; from < missing.size(); from += MAX_IN_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + MAX_IN_SIZE, missing.size()));
+            em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", padToPowerOfTwo(chunk))
+                .getResultList()
+                .forEach(member -> found.put(member.getId(), member));
+        }
+
+        List<Member> result = new ArrayList<>(found.size());
+        for (Long id : distinct) {
+            Member member = found.get(id);
+            if (member != null) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    static List<Long> padToPowerOfTwo(List<Long> ids) {
+        int size = Integer.highestOneBit(ids.size());
+        if (size == ids.size()) {
+            return ids;
+        }
+        List<Long> padded = new ArrayList<>(size << 1);
+        padded.addAll(ids);
+        Long last = ids.get(ids.size() - 1);
+        while (padded.size() < size << 1) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
     public List<Member> findAll() {
         return em.createQuery("select m from Member m", Member.class)
             .getResultList();
@@ -52,6 +131,7 @@ public class MemberJpaRepository {
     public List<Member> findByUsername(String username) {
         return em.createQuery("select m from Member m where m.username = :username", Member.class)
             .setParameter("username", username)
+            .setHint(QueryHints.CACHEABLE, true)
             .getResultList();
     }
 
@@ -59,6 +139,7 @@ public class MemberJpaRepository {
         return factory
             .selectFrom(member)
             .where(member.username.eq(username))
+            .setHint(QueryHints.CACHEABLE, true)
             .fetch();
     }
 
@@ -78,6 +159,7 @@ public class MemberJpaRepository {
         if (condition.getAgeLoe() != null) {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
+        builder.and(MemberSearchPredicates.usernameMatch(condition, usernameIndex.candidates(condition)));
 
         return factory
             .select(new QMemberTeamDTO(
@@ -93,7 +175,17 @@ public class MemberJpaRepository {
             .fetch();
     }
 
+    //shape 별로 한 번 직렬화해둔 Querydsl 쿼리에 파라미터만 바인딩한다. (MemberSearchShapes)
     public List<MemberTeamDTO> search(MemberSearchCondition condition) {
+        return MemberSearchShapes.fetch(em, condition, usernameIndex.candidates(condition));
+    }
+
+    /*
+     * search() 와 같은 projection 을 forward-only 커서(ScrollableResults)로 한 건씩 읽는다.
+     * 호출하는 쪽에서 트랜잭션 안에서 사용하고 반드시 close 해야 한다.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public CloseableIterator<MemberTeamDTO> iterate(MemberSearchCondition condition, int fetchSize) {
         return factory
             .select(new QMemberTeamDTO(
                 member.id.as("memberId"),
@@ -105,30 +197,14 @@ public class MemberJpaRepository {
             .from(member)
             .leftJoin(member.team, team)
             .where(
-                getUsernameEq(condition.getUsername()),
-                teamNameEq(condition.getTeamName()),
-                getAgeGoe(condition.getAgeGoe()),
-                getAgeLoe(condition.getAgeLoe())
-
+                MemberSearchPredicates.usernameEq(condition.getUsername()),
+                MemberSearchPredicates.teamNameEq(condition.getTeamName()),
+                MemberSearchPredicates.ageGoe(condition.getAgeGoe()),
+                MemberSearchPredicates.ageLoe(condition.getAgeLoe()),
+                MemberSearchPredicates.usernameMatch(condition, usernameIndex.candidates(condition))
             )
-            .fetch();
-    }
-
-    private BooleanExpression getUsernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+            .setHint(QueryHints.FETCH_SIZE, fetchSize)
+            .setHint(QueryHints.READ_ONLY, true)
+            .iterate();
     }
-
-    private BooleanExpression getAgeGoe(Integer ageGoe) {
-        return ageGoe != null? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression getAgeLoe(Integer ageLoe) {
-        return ageLoe != null? member.age.loe(ageLoe) : null;
-    }
-
-
 }
@@ -2,9 +2,13 @@ package gorany.dslshop.repository;
 
 import gorany.dslshop.entity.Member;
 import java.util.List;
+import javax.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
+    //query cache (default-query-results-region): member 테이블에 쓰기가 있으면 Hibernate 가 무효화한다.
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Member> findByUsername(String username);
 }
@@ -1,10 +1,13 @@
 package gorany.dslshop.repository;
 
+import gorany.dslshop.dto.CursorResult;
+import gorany.dslshop.dto.MemberCursor;
 import gorany.dslshop.dto.MemberSearchCondition;
 import gorany.dslshop.dto.MemberTeamDTO;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface MemberRepositoryCustom {
 
@@ -12,5 +15,8 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     List<MemberTeamDTO> searchByBuilder(MemberSearchCondition condition);
     Page<MemberTeamDTO> searchByBuilderComplex(MemberSearchCondition condition, Pageable pageable);
+    Slice<MemberTeamDTO> searchSlice(MemberSearchCondition condition, Pageable pageable);
+    CursorResult<MemberTeamDTO> searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size);
+    List<Long> searchIdsAfter(MemberSearchCondition condition, Long lastId, int limit);
 
 }
@@ -2,30 +2,62 @@ package gorany.dslshop.repository;
 
 import static gorany.dslshop.entity.QMember.member;
 import static gorany.dslshop.entity.QTeam.team;
+import static gorany.dslshop.repository.MemberSearchPredicates.ageGoe;
+import static gorany.dslshop.repository.MemberSearchPredicates.ageLoe;
+import static gorany.dslshop.repository.MemberSearchPredicates.needsTeam;
+import static gorany.dslshop.repository.MemberSearchPredicates.teamNameEq;
+import static gorany.dslshop.repository.MemberSearchPredicates.usernameEq;
+import static gorany.dslshop.repository.MemberSearchPredicates.usernameMatch;
 import static org.springframework.util.StringUtils.hasText;
 
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.cache.MemberCountCache;
+import gorany.dslshop.cache.MemberSearchResultCache;
+import gorany.dslshop.dto.CursorResult;
+import gorany.dslshop.dto.MemberCursor;
 import gorany.dslshop.dto.MemberSearchCondition;
 import gorany.dslshop.dto.MemberTeamDTO;
 import gorany.dslshop.dto.QMemberTeamDTO;
-import gorany.dslshop.entity.Member;
+import gorany.dslshop.search.UsernameTrigramIndex;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 import javax.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.annotation.Transactional;
 
+//조회 전용: routing 이 켜져 있으면 replica 로 간다.
+@Transactional(readOnly = true)
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 
+    private final EntityManager em;
     private final JPAQueryFactory factory;
+    private final MemberCountCache countCache;
+    private final MemberSearchResultCache resultCache;
+    private final ParallelCountExecutor countExecutor;
+    private final UsernameTrigramIndex usernameIndex;
+    private final long deferredJoinOffset;
 
-    public MemberRepositoryCustomImpl(EntityManager em) {
+    public MemberRepositoryCustomImpl(EntityManager em, MemberCountCache countCache, MemberSearchResultCache resultCache,
+        ParallelCountExecutor countExecutor, UsernameTrigramIndex usernameIndex,
+        @Value("${dslshop.search.deferred-join.offset-threshold:1000}") long deferredJoinOffset) {
+        this.em = em;
         factory = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.resultCache = resultCache;
+        this.countExecutor = countExecutor;
+        this.usernameIndex = usernameIndex;
+        this.deferredJoinOffset = deferredJoinOffset;
     }
 
     public List<MemberTeamDTO> searchByBuilder(MemberSearchCondition condition) {
@@ -44,6 +76,7 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
         if (condition.getAgeLoe() != null) {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
+        builder.and(usernameMatch(condition, usernameIndex.candidates(condition)));
 
         return factory
             .select(new QMemberTeamDTO(
@@ -60,7 +93,26 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
     }
 
     public List<MemberTeamDTO> search(MemberSearchCondition condition) {
-        return factory
+        return resultCache.get("search", condition, null,
+            () -> Collections.unmodifiableList(searchQuery(condition)), List::size);
+    }
+
+    //shape 별로 한 번 직렬화해둔 Querydsl 쿼리에 파라미터만 바인딩한다. (MemberSearchShapes)
+    private List<MemberTeamDTO> searchQuery(MemberSearchCondition condition) {
+        return MemberSearchShapes.fetch(em, condition, usernameIndex.candidates(condition));
+    }
+
+    @Override
+    public Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return resultCache.get("searchPageSimple", condition, pageable,
+            () -> searchPageSimpleQuery(condition, pageable), page -> page.getNumberOfElements());
+    }
+
+    private Page<MemberTeamDTO> searchPageSimpleQuery(MemberSearchCondition condition, Pageable pageable) {
+
+        Set<Long> candidates = usernameIndex.candidates(condition);
+
+        JPAQuery<MemberTeamDTO> query = factory
             .select(new QMemberTeamDTO(
                 member.id.as("memberId"),
                 member.username,
@@ -71,19 +123,83 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
             .from(member)
             .leftJoin(member.team, team)
             .where(
-                getUsernameEq(condition.getUsername()),
+                usernameEq(condition.getUsername()),
                 teamNameEq(condition.getTeamName()),
-                getAgeGoe(condition.getAgeGoe()),
-                getAgeLoe(condition.getAgeLoe())
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                usernameMatch(condition, candidates)
+            )
+            .orderBy(member.id.asc())
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize());
+
+        //offset 이 크면 id 만으로 페이지를 찾고 그 id 들만 projection 으로 읽는다.
+        Supplier<List<MemberTeamDTO>> content = isDeepPage(pageable)
+            ? () -> deferredJoinContent(condition, candidates, pageable)
+            : query::fetch;
+
+        //count query 1 (캐시에 있으면 생략) + content query 1 (깊은 페이지는 2), 설정에 따라 동시에 실행
+        return countExecutor.page(content, pageable,
+            () -> countCache.get(condition, () -> MemberCountQuery.count(factory, condition, candidates)));
+    }
+
+    private boolean isDeepPage(Pageable pageable) {
+        return deferredJoinOffset > 0 && pageable.getOffset() >= deferredJoinOffset;
+    }
 
+    /*
+     * deferred join: 버려지는 앞쪽 offset 건까지 member / team 전체 row 를 읽지 않도록
+     * 1) 조건에 맞는 member.id 만 offset / limit (team 조건이 없으면 join 도 하지 않는다)
+     * 2) 그 id 들에 대해서만 team 을 join 해서 MemberTeamDTO 로 읽는다.
+     */
+    private List<MemberTeamDTO> deferredJoinContent(MemberSearchCondition condition, Set<Long> candidates,
+        Pageable pageable) {
+        JPAQuery<Long> idQuery = factory
+            .select(member.id)
+            .from(member);
+
+        if (needsTeam(condition)) {
+            idQuery.join(member.team, team);
+        }
+
+        List<Long> ids = idQuery
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                usernameMatch(condition, candidates)
             )
+            .orderBy(member.id.asc())
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return factory
+            .select(new QMemberTeamDTO(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+            ))
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(member.id.in(ids))
+            .orderBy(member.id.asc())
             .fetch();
     }
 
     @Override
-    public Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDTO> searchByBuilderComplex(MemberSearchCondition condition, Pageable pageable) {
+
+        Set<Long> candidates = usernameIndex.candidates(condition);
 
-        QueryResults<MemberTeamDTO> results = factory
+        JPAQuery<MemberTeamDTO> query = factory
             .select(new QMemberTeamDTO(
                 member.id.as("memberId"),
                 member.username,
@@ -94,25 +210,26 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
             .from(member)
             .leftJoin(member.team, team)
             .where(
-                getUsernameEq(condition.getUsername()),
+                usernameEq(condition.getUsername()),
                 teamNameEq(condition.getTeamName()),
-                getAgeGoe(condition.getAgeGoe()),
-                getAgeLoe(condition.getAgeLoe())
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                usernameMatch(condition, candidates)
             )
             .offset(pageable.getOffset())
-            .limit(pageable.getPageSize())
-            .fetchResults(); //content query 1 + count query 1
+            .limit(pageable.getPageSize());
 
-        List<MemberTeamDTO> content = results.getResults();
-        long total = results.getTotal();
+        //content 만으로 total 을 알 수 있으면 count 결과를 쓰지 않는다. (PageableExecutionUtils 와 같은 규칙)
+        return countExecutor.page(query::fetch, pageable,
+            () -> countCache.get(condition, () -> MemberCountQuery.count(factory, condition, candidates)));
 
-        return new PageImpl<>(content, pageable, total);
+        //return new PageImpl<>(content, pageable, total);
     }
 
     @Override
-    public Page<MemberTeamDTO> searchByBuilderComplex(MemberSearchCondition condition, Pageable pageable) {
+    public Slice<MemberTeamDTO> searchSlice(MemberSearchCondition condition, Pageable pageable) {
 
-        List<MemberTeamDTO> content = factory
+        JPAQuery<MemberTeamDTO> query = factory
             .select(new QMemberTeamDTO(
                 member.id.as("memberId"),
                 member.username,
@@ -123,47 +240,109 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
             .from(member)
             .leftJoin(member.team, team)
             .where(
-                getUsernameEq(condition.getUsername()),
+                usernameEq(condition.getUsername()),
                 teamNameEq(condition.getTeamName()),
-                getAgeGoe(condition.getAgeGoe()),
-                getAgeLoe(condition.getAgeLoe())
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                usernameMatch(condition, usernameIndex.candidates(condition))
             )
+            .orderBy(member.id.asc()); //다음 slice 와 겹치거나 빠지지 않도록 순서를 고정
+
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.fetch(), pageable, false);
+        }
+
+        //count 쿼리 없이 한 건 더 읽어서 다음 slice 여부만 판단
+        List<MemberTeamDTO> content = query
             .offset(pageable.getOffset())
-            .limit(pageable.getPageSize())
+            .limit(pageable.getPageSize() + 1)
             .fetch();
 
-        JPAQuery<Member> countQuery = factory
-            .select(member)
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public CursorResult<MemberTeamDTO> searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size) {
+
+        //offset 없이 커서 이후부터 size + 1 건만 읽는다. (한 건 더 읽어서 다음 페이지 여부 판단)
+        List<MemberTeamDTO> content = factory
+            .select(new QMemberTeamDTO(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+            ))
             .from(member)
             .leftJoin(member.team, team)
             .where(
-                getUsernameEq(condition.getUsername()),
+                usernameEq(condition.getUsername()),
                 teamNameEq(condition.getTeamName()),
-                getAgeGoe(condition.getAgeGoe()),
-                getAgeLoe(condition.getAgeLoe())
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                usernameMatch(condition, usernameIndex.candidates(condition)),
+                cursorAfter(cursor)
             )
-            .offset(pageable.getOffset())
-            .limit(pageable.getPageSize());
+            .orderBy(cursorOrder(cursor.getSort()))
+            .limit(size + 1)
+            .fetch();
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, size));
+        }
+        String nextCursor = hasNext
+            ? MemberCursor.after(cursor.getSort(), content.get(content.size() - 1)).encode()
+            : null;
 
-        //return new PageImpl<>(content, pageable, total);
+        return new CursorResult<>(content, nextCursor, hasNext);
     }
 
-    private BooleanExpression getUsernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
+    //검색조건에 맞는 member id 를 lastId 이후부터 id 순으로 limit 건 (chunk 단위 bulk 처리용)
+    @Override
+    public List<Long> searchIdsAfter(MemberSearchCondition condition, Long lastId, int limit) {
+        JPAQuery<Long> query = factory
+            .select(member.id)
+            .from(member);
+
+        if (needsTeam(condition)) {
+            query.join(member.team, team);
+        }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+        return query
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()),
+                usernameMatch(condition, usernameIndex.candidates(condition)),
+                lastId != null ? member.id.gt(lastId) : null
+            )
+            .orderBy(member.id.asc())
+            .limit(limit)
+            .fetch();
     }
 
-    private BooleanExpression getAgeGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    private BooleanExpression cursorAfter(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+        if (cursor.getSort() == MemberCursor.Sort.AGE) {
+            return member.age.gt(cursor.getLastAge())
+                .or(member.age.eq(cursor.getLastAge()).and(member.id.gt(cursor.getLastMemberId())));
+        }
+        return member.id.gt(cursor.getLastMemberId());
     }
 
-    private BooleanExpression getAgeLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    private OrderSpecifier<?>[] cursorOrder(MemberCursor.Sort sort) {
+        if (sort == MemberCursor.Sort.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
     }
 
 
@@ -0,0 +1,177 @@
+package gorany.dslshop.repository;
+
+import static gorany.dslshop.entity.QMember.member;
+import static gorany.dslshop.entity.QMemberTeamView.memberTeamView;
+import static gorany.dslshop.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import gorany.dslshop.dto.MemberSearchCondition;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * MemberSearchCondition 의 where 절 조건들 (null 이면 Querydsl 이 무시한다)
+ * Expression 을 받는 것들은 MemberSearchShapes 가 값 대신 Param 으로 쿼리 모양을 만들 때 쓴다.
+ */
+final class MemberSearchPredicates {
+
+    //Querydsl 의 contains / startsWith 와 같은 escape 문자
+    static final char LIKE_ESCAPE = '!';
+
+    /*
+     * 검색조건이 걸리는 컬럼: member + team join (MEMBER) 또는 member_team_view (VIEW)
+     * 같은 조건 코드로 만들어서 검색 / count / export / view 의 의미가 달라지지 않게 한다.
+     */
+    static final Target MEMBER = new Target(member.username, team.name, member.age, member.id);
+    static final Target VIEW = new Target(memberTeamView.username, memberTeamView.teamName, memberTeamView.age,
+        memberTeamView.memberId);
+
+    private MemberSearchPredicates() {
+    }
+
+    //검색조건 전체 (usernameEq, teamNameEq, ageGoe, ageLoe, usernameMatch)
+    static Predicate[] where(Target target, MemberSearchCondition condition, Set<Long> candidates) {
+        return new Predicate[]{
+            usernameEq(target, condition.getUsername()),
+            teamNameEq(target, condition.getTeamName()),
+            ageGoe(target, condition.getAgeGoe()),
+            ageLoe(target, condition.getAgeLoe()),
+            usernameMatch(target, condition, candidates)
+        };
+    }
+
+    static BooleanExpression usernameEq(String username) {
+        return usernameEq(MEMBER, username);
+    }
+
+    static BooleanExpression teamNameEq(String teamName) {
+        return teamNameEq(MEMBER, teamName);
+    }
+
+    static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe(MEMBER, ageGoe);
+    }
+
+    static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe(MEMBER, ageLoe);
+    }
+
+    static Predicate usernameMatch(MemberSearchCondition condition, Set<Long> candidates) {
+        return usernameMatch(MEMBER, condition, candidates);
+    }
+
+    static BooleanExpression usernameEq(Target target, String username) {
+        return hasText(username) ? target.username.eq(username) : null;
+    }
+
+    static BooleanExpression teamNameEq(Target target, String teamName) {
+        return hasText(teamName) ? target.teamName.eq(teamName) : null;
+    }
+
+    static BooleanExpression ageGoe(Target target, Integer ageGoe) {
+        return ageGoe != null ? target.age.goe(ageGoe) : null;
+    }
+
+    static BooleanExpression ageLoe(Target target, Integer ageLoe) {
+        return ageLoe != null ? target.age.loe(ageLoe) : null;
+    }
+
+    static BooleanExpression usernameContains(Target target, String usernameContains) {
+        return hasText(usernameContains) ? target.username.contains(usernameContains) : null;
+    }
+
+    static BooleanExpression usernameStartsWith(Target target, String usernameStartsWith) {
+        return hasText(usernameStartsWith) ? target.username.startsWith(usernameStartsWith) : null;
+    }
+
+    /*
+     * usernameContains / usernameStartsWith 조건
+     * candidates: UsernameTrigramIndex 가 찾은 id, null 이면 LIKE 만으로 검색
+     * 후보가 있으면 id 로 좁힌 행에만 LIKE 를 다시 확인한다. (색인이 커밋 직후 아직 반영 전이어도 틀린 회원이 나오지 않게)
+     * IN 절 크기는 2의 거듭제곱으로 맞춘다. (findAllByIds 와 같은 이유)
+     */
+    static Predicate usernameMatch(Target target, MemberSearchCondition condition, Set<Long> candidates) {
+        Predicate like = ExpressionUtils.allOf(
+            usernameContains(target, condition.getUsernameContains()),
+            usernameStartsWith(target, condition.getUsernameStartsWith())
+        );
+        if (candidates == null || like == null) {
+            return like;
+        }
+        if (candidates.isEmpty()) {
+            return target.id.isNull();
+        }
+        return ExpressionUtils.and(target.id.in(padCandidates(candidates)), like);
+    }
+
+    static BooleanExpression usernameEq(Expression<String> username) {
+        return member.username.eq(username);
+    }
+
+    static BooleanExpression teamNameEq(Expression<String> teamName) {
+        return team.name.eq(teamName);
+    }
+
+    static BooleanExpression ageGoe(Expression<Integer> ageGoe) {
+        return member.age.goe(ageGoe);
+    }
+
+    static BooleanExpression ageLoe(Expression<Integer> ageLoe) {
+        return member.age.loe(ageLoe);
+    }
+
+    //pattern 은 escapeLike 한 값에 % 를 붙여서 바인딩한다.
+    static BooleanExpression usernameLike(Expression<String> pattern) {
+        return member.username.like(pattern, LIKE_ESCAPE);
+    }
+
+    @SuppressWarnings("rawtypes")
+    static BooleanExpression idIn(Expression<Collection> ids) {
+        return Expressions.booleanOperation(Ops.IN, member.id, ids);
+    }
+
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    static List<Long> padCandidates(Set<Long> candidates) {
+        return MemberJpaRepository.padToPowerOfTwo(new ArrayList<>(candidates));
+    }
+
+    //team 테이블이 필요한 조건이 있는지
+    static boolean needsTeam(MemberSearchCondition condition) {
+        return hasText(condition.getTeamName());
+    }
+
+    static final class Target {
+
+        private final StringPath username;
+        private final StringPath teamName;
+        private final NumberPath<Integer> age;
+        private final NumberPath<Long> id;
+
+        private Target(StringPath username, StringPath teamName, NumberPath<Integer> age, NumberPath<Long> id) {
+            this.username = username;
+            this.teamName = teamName;
+            this.age = age;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package gorany.dslshop.repository;
+
+import static gorany.dslshop.entity.QMember.member;
+import static gorany.dslshop.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.dto.MemberTeamDTO;
+import gorany.dslshop.dto.QMemberTeamDTO;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+/*
+ * search() 의 Querydsl 쿼리를 쿼리 모양(shape)별로 한 번만 직렬화해 둔다.
+ * - shape: MemberSearchCondition 의 6개 조건이 있고/없고 (64가지) + username 색인 후보 id 여부 (CANDIDATES)
+ * - where 절은 MemberSearchPredicates 의 조건을 값 대신 Param 으로 만든 것이라 의미가 같다.
+ * - 요청마다 Querydsl 표현식 트리를 만들고 JPQL 로 직렬화하는 대신 캐시된 JPQL 에 파라미터만 바인딩한다.
+ * - JPQL 문자열이 shape 마다 항상 같으므로 Hibernate 의 QueryPlanCache 에서도 SQL 변환이 한 번만 일어난다.
+ */
+final class MemberSearchShapes {
+
+    static final int USERNAME = 1;
+    static final int TEAM_NAME = 1 << 1;
+    static final int AGE_GOE = 1 << 2;
+    static final int AGE_LOE = 1 << 3;
+    static final int USERNAME_CONTAINS = 1 << 4;
+    static final int USERNAME_PREFIX = 1 << 5;
+    static final int CONDITION_SHAPES = 1 << 6;
+    static final int CANDIDATES = 1 << 6;
+    static final int SHAPE_COUNT = 1 << 7;
+
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME_PARAM = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+    //LIKE 패턴은 바인딩할 때 escape 하고 % 를 붙인다.
+    private static final Param<String> USERNAME_CONTAINS_PARAM = new Param<>(String.class, "usernameContains");
+    private static final Param<String> USERNAME_PREFIX_PARAM = new Param<>(String.class, "usernameStartsWith");
+    @SuppressWarnings("rawtypes")
+    private static final Param<Collection> CANDIDATE_IDS_PARAM = new Param<>(Collection.class, "candidateIds");
+
+    private static final QMemberTeamDTO PROJECTION = new QMemberTeamDTO(
+        member.id.as("memberId"),
+        member.username,
+        member.age,
+        team.id.as("teamId"),
+        team.name.as("teamName")
+    );
+
+    private static final Shape[] SHAPES = new Shape[SHAPE_COUNT];
+
+    static {
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            SHAPES[shape] = Shape.serialize(shape);
+        }
+    }
+
+    private MemberSearchShapes() {
+    }
+
+    static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        if (hasText(condition.getUsernameContains())) {
+            shape |= USERNAME_CONTAINS;
+        }
+        if (hasText(condition.getUsernameStartsWith())) {
+            shape |= USERNAME_PREFIX;
+        }
+        return shape;
+    }
+
+    //candidates: username 색인 후보 id (null 이면 LIKE 만으로 검색, 비어 있으면 조회하지 않는다)
+    static List<MemberTeamDTO> fetch(EntityManager em, MemberSearchCondition condition, Set<Long> candidates) {
+        int shape = shapeOf(condition);
+        if (candidates != null && (shape & (USERNAME_CONTAINS | USERNAME_PREFIX)) != 0) {
+            if (candidates.isEmpty()) {
+                return new ArrayList<>();
+            }
+            shape |= CANDIDATES;
+        }
+
+        Shape cached = SHAPES[shape];
+        Query query = em.createQuery(cached.jpql);
+        JPAUtil.setConstants(query, cached.constants, params(shape, condition, candidates));
+
+        List<?> rows = query.getResultList();
+        List<MemberTeamDTO> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(PROJECTION.newInstance((Object[]) row));
+        }
+        return result;
+    }
+
+    private static Map<ParamExpression<?>, Object> params(int shape, MemberSearchCondition condition,
+        Set<Long> candidates) {
+        Map<ParamExpression<?>, Object> params = new HashMap<>();
+        if ((shape & USERNAME) != 0) {
+            params.put(USERNAME_PARAM, condition.getUsername());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            params.put(TEAM_NAME_PARAM, condition.getTeamName());
+        }
+        if ((shape & AGE_GOE) != 0) {
+            params.put(AGE_GOE_PARAM, condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            params.put(AGE_LOE_PARAM, condition.getAgeLoe());
+        }
+        if ((shape & CANDIDATES) != 0) {
+            params.put(CANDIDATE_IDS_PARAM, MemberSearchPredicates.padCandidates(candidates));
+        }
+        if ((shape & USERNAME_CONTAINS) != 0) {
+            params.put(USERNAME_CONTAINS_PARAM, "%" + MemberSearchPredicates.escapeLike(condition.getUsernameContains()) + "%");
+        }
+        if ((shape & USERNAME_PREFIX) != 0) {
+            params.put(USERNAME_PREFIX_PARAM, MemberSearchPredicates.escapeLike(condition.getUsernameStartsWith()) + "%");
+        }
+        return params;
+    }
+
+    private static final class Shape {
+
+        private final String jpql;
+        //Param -> JPQL 위치 파라미터 번호
+        private final Map<Object, String> constants;
+
+        private Shape(String jpql, Map<Object, String> constants) {
+            this.jpql = jpql;
+            this.constants = constants;
+        }
+
+        static Shape serialize(int shape) {
+            JPAQuery<MemberTeamDTO> query = new JPAQuery<Void>()
+                .select(PROJECTION)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where(shape));
+
+            JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+            serializer.serialize(query.getMetadata(), false, null);
+            return new Shape(serializer.toString(), new HashMap<>(serializer.getConstantToLabel()));
+        }
+
+        private static Predicate[] where(int shape) {
+            return new Predicate[]{
+                (shape & USERNAME) != 0 ? MemberSearchPredicates.usernameEq(USERNAME_PARAM) : null,
+                (shape & TEAM_NAME) != 0 ? MemberSearchPredicates.teamNameEq(TEAM_NAME_PARAM) : null,
+                (shape & AGE_GOE) != 0 ? MemberSearchPredicates.ageGoe(AGE_GOE_PARAM) : null,
+                (shape & AGE_LOE) != 0 ? MemberSearchPredicates.ageLoe(AGE_LOE_PARAM) : null,
+                (shape & CANDIDATES) != 0 ? MemberSearchPredicates.idIn(CANDIDATE_IDS_PARAM) : null,
+                (shape & USERNAME_CONTAINS) != 0 ? MemberSearchPredicates.usernameLike(USERNAME_CONTAINS_PARAM) : null,
+                (shape & USERNAME_PREFIX) != 0 ? MemberSearchPredicates.usernameLike(USERNAME_PREFIX_PARAM) : null
+            };
+        }
+    }
+}
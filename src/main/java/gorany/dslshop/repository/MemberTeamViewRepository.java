@@ -0,0 +1,78 @@
+package gorany.dslshop.repository;
+
+import static gorany.dslshop.entity.QMemberTeamView.memberTeamView;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.dto.MemberTeamDTO;
+import gorany.dslshop.dto.QMemberTeamDTO;
+import gorany.dslshop.search.UsernameTrigramIndex;
+import gorany.dslshop.service.MemberTeamViewProjector;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * member_team_view 에서 MemberTeamDTO 검색 (member - team join 없음)
+ * 검색조건은 MemberRepositoryCustom 의 검색과 같은 MemberSearchPredicates 로 만든다.
+ * 같은 트랜잭션에서 아직 쓰지 않은 projector 의 변경은 조회 전에 쓴다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberTeamViewRepository {
+
+    private final JPAQueryFactory factory;
+    private final UsernameTrigramIndex usernameIndex;
+    private final MemberTeamViewProjector projector;
+
+    public MemberTeamViewRepository(EntityManager em, UsernameTrigramIndex usernameIndex,
+        MemberTeamViewProjector projector) {
+        this.factory = new JPAQueryFactory(em);
+        this.usernameIndex = usernameIndex;
+        this.projector = projector;
+    }
+
+    public List<MemberTeamDTO> search(MemberSearchCondition condition) {
+        projector.flush();
+        return contentQuery(condition).fetch();
+    }
+
+    public Page<MemberTeamDTO> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        projector.flush();
+        List<MemberTeamDTO> content = contentQuery(condition)
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+
+        JPAQuery<Long> countQuery = factory
+            .select(memberTeamView.memberId.count())
+            .from(memberTeamView)
+            .where(where(condition));
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    private JPAQuery<MemberTeamDTO> contentQuery(MemberSearchCondition condition) {
+        return factory
+            .select(new QMemberTeamDTO(
+                memberTeamView.memberId,
+                memberTeamView.username,
+                memberTeamView.age,
+                memberTeamView.teamId,
+                memberTeamView.teamName
+            ))
+            .from(memberTeamView)
+            .where(where(condition))
+            .orderBy(memberTeamView.memberId.asc());
+    }
+
+    private Predicate[] where(MemberSearchCondition condition) {
+        return MemberSearchPredicates.where(MemberSearchPredicates.VIEW, condition, usernameIndex.candidates(condition));
+    }
+}
@@ -0,0 +1,145 @@
+package gorany.dslshop.repository;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import gorany.dslshop.datasource.ReadYourWrites;
+import gorany.dslshop.metrics.QueryContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * 페이지 조회의 content 쿼리와 count 쿼리를 동시에 실행한다.
+ * - count 는 크기가 제한된 스레드 풀에서 별도의 read-only 트랜잭션으로 돌린다. (별도 EntityManager / 커넥션)
+ *   QueryContext 와 열린 StatementScope 는 풀 스레드로 옮겨서 요청 단위 statement 수 / 예산에 그대로 잡힌다.
+ * - content 만으로 total 을 알 수 있으면 (PageableExecutionUtils 와 같은 규칙) count 결과를 기다리지 않는다.
+ * - 다음 경우에는 호출한 스레드에서 순서대로 실행한다.
+ *   enabled=false, 쓰기 트랜잭션 안(다른 커넥션에서는 커밋 전 변경이 안 보인다), 풀이 가득 찼을 때, timeout 이 지났을 때
+ */
+@Slf4j
+@Component
+public class ParallelCountExecutor implements DisposableBean {
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ParallelCountExecutor(PlatformTransactionManager transactionManager,
+        @Value("${dslshop.search.parallel-count.enabled:false}") boolean enabled,
+        @Value("${dslshop.search.parallel-count.threads:4}") int threads,
+        @Value("${dslshop.search.parallel-count.queue-capacity:64}") int queueCapacity,
+        @Value("${dslshop.search.parallel-count.timeout-millis:3000}") long timeoutMillis) {
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "member-count-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public <T> Page<T> page(Supplier<List<T>> content, Pageable pageable, LongSupplier count) {
+        Future<Long> total = submit(count);
+        if (total == null) {
+            List<T> rows = content.get();
+            long known = totalFromContent(rows, pageable);
+            return new PageImpl<>(rows, pageable, known >= 0 ? known : count.getAsLong());
+        }
+
+        List<T> rows;
+        try {
+            rows = content.get();
+        } catch (RuntimeException e) {
+            total.cancel(true);
+            throw e;
+        }
+
+        long known = totalFromContent(rows, pageable);
+        if (known >= 0) {
+            total.cancel(false);
+            return new PageImpl<>(rows, pageable, known);
+        }
+        return new PageImpl<>(rows, pageable, await(total, count));
+    }
+
+    private Future<Long> submit(LongSupplier count) {
+        if (!enabled || inReadWriteTransaction()) {
+            return null;
+        }
+        try {
+            //호출한 스레드의 QueryContext / StatementScope 를 넘겨서 요청의 statement 수 / 예산 / 지표에 포함한다.
+            //read-your-writes Window 도 넘겨서 방금 쓴 요청의 count 는 primary 에서 읽는다.
+            return executor.submit(ReadYourWrites.propagate(
+                QueryContext.propagate(() -> readOnlyTransaction.execute(status -> count.getAsLong()))));
+        } catch (RejectedExecutionException e) {
+            log.debug("count executor is full, counting serially");
+            return null;
+        }
+    }
+
+    private long await(Future<Long> total, LongSupplier count) {
+        try {
+            return total.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            total.cancel(true);
+            log.warn("parallel count did not finish in {} ms, counting serially", timeoutMillis);
+            return count.getAsLong();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            total.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for count", e);
+        }
+    }
+
+    //첫 페이지가 덜 찼거나 마지막 페이지라서 content 만으로 total 을 알 수 있으면 그 값, 모르면 -1
+    private static long totalFromContent(List<?> rows, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return rows.size();
+        }
+        if (rows.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !rows.isEmpty())) {
+            return pageable.getOffset() + rows.size();
+        }
+        return -1;
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
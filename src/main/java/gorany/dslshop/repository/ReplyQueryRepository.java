@@ -0,0 +1,124 @@
+package gorany.dslshop.repository;
+
+import static gorany.dslshop.entity.QReply.reply;
+import static gorany.dslshop.entity.QUser.user;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.dto.QReplyDTO;
+import gorany.dslshop.dto.ReplyDTO;
+import gorany.dslshop.entity.Reply;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+@Transactional(readOnly = true)
+public class ReplyQueryRepository {
+
+    private final JPAQueryFactory factory;
+
+    public ReplyQueryRepository(EntityManager em) {
+        this.factory = new JPAQueryFactory(em);
+    }
+
+    /*
+     * 게시글의 모든 댓글을 작성자와 함께 쿼리 한 번으로 읽는다.
+     * reply.parent.id / reply.board.id 는 FK 컬럼이라 추가 join 이 생기지 않는다.
+     */
+    public List<ReplyDTO> findAllByBoard(Long boardId) {
+        return factory
+            .select(new QReplyDTO(
+                reply.id,
+                reply.parent.id,
+                reply.content,
+                user.id,
+                user.name
+            ))
+            .from(reply)
+            .leftJoin(reply.user, user)
+            .where(reply.board.id.eq(boardId))
+            .orderBy(reply.id.asc())
+            .fetch();
+    }
+
+    /*
+     * 게시글 boardId 의 reply 와 그 모든 자손을 표시 순서(path)대로 읽는다. (board_id, path_key) range scan
+     * reply 가 없거나 다른 게시글의 댓글이면 빈 목록
+     */
+    public List<ReplyDTO> findSubtree(Long boardId, Long replyId) {
+        String path = factory
+            .select(reply.path)
+            .from(reply)
+            .where(
+                reply.id.eq(replyId),
+                reply.board.id.eq(boardId)
+            )
+            .fetchOne();
+        if (path == null) {
+            return Collections.emptyList();
+        }
+
+        return findPathRange(boardId, path, Reply.pathUpperBound(path));
+    }
+
+    /*
+     * 게시글의 앞쪽 limit 개 스레드(최상위 댓글 + 자손)를 표시 순서대로 읽는다.
+     * 최상위 댓글 limit + 1 개의 path 로 범위를 정하고, 그 범위를 range scan 한 번으로 읽는다.
+     * limit 이 0 이하면 조회하지 않는다.
+     */
+    public List<ReplyDTO> findTopThreads(Long boardId, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        //최상위 댓글은 path 가 한 단계라 path_key 와 같다. (board_id, depth, path_key) 인덱스
+        List<String> rootPaths = factory
+            .select(reply.pathKey)
+            .from(reply)
+            .where(
+                reply.board.id.eq(boardId),
+                reply.depth.eq(0),
+                reply.pathKey.isNotNull()
+            )
+            .orderBy(reply.pathKey.asc())
+            .limit(limit + 1L)
+            .fetch();
+        if (rootPaths.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String from = rootPaths.get(0);
+        String to = rootPaths.size() > limit
+            ? rootPaths.get(limit)
+            : Reply.pathUpperBound(rootPaths.get(rootPaths.size() - 1));
+        return findPathRange(boardId, from, to);
+    }
+
+    /*
+     * fromInclusive <= path < toExclusive
+     * path_key 범위로 인덱스를 타고, path_key 가 잘린 (PATH_KEY_SEGMENTS 보다 깊은) 부분만 path 로 다시 거른다.
+     * path_key 는 path 의 앞부분이므로 (path_key, path) 순서는 path 순서와 같다.
+     */
+    private List<ReplyDTO> findPathRange(Long boardId, String fromInclusive, String toExclusive) {
+        return factory
+            .select(new QReplyDTO(
+                reply.id,
+                reply.parent.id,
+                reply.content,
+                user.id,
+                user.name
+            ))
+            .from(reply)
+            .leftJoin(reply.user, user)
+            .where(
+                reply.board.id.eq(boardId),
+                reply.pathKey.between(Reply.pathKey(fromInclusive), Reply.pathKey(toExclusive)),
+                reply.path.goe(fromInclusive),
+                reply.path.lt(toExclusive)
+            )
+            .orderBy(reply.pathKey.asc(), reply.path.asc())
+            .fetch();
+    }
+}
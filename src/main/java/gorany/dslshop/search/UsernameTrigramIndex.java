@@ -0,0 +1,284 @@
+package gorany.dslshop.search;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.event.AfterCompletion;
+import gorany.dslshop.event.EntityChangeEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * Member.username 의 trigram(3글자 조각) 역색인
+ * username contains / startsWith 검색을 LIKE '%x%' (member 전체 스캔) 대신 후보 id 집합으로 좁힌다.
+ *
+ * - 애플리케이션 시작 시 member 를 id 순으로 나눠 읽어서 만든다.
+ * - 이후에는 EntityChangeEvent 로 INSERT / UPDATE / DELETE 를 트랜잭션 단위로 모았다가 커밋된 것만 반영한다.
+ *   (다른 트랜잭션은 커밋되지 않은 username 을 보지 않고, 롤백되면 원래 username 이 그대로 남는다)
+ * - username 을 바꾼 트랜잭션 안에서는 색인이 아직 옛 값이므로 null -> SQL LIKE 로 검색한다. (자신의 변경을 보도록)
+ * - 색인은 소문자 기준, 후보는 원래 username 과 대소문자까지 비교해서 LIKE 와 같은 결과만 남긴다.
+ *   SQL 에서도 LIKE 를 id 조건과 함께 두므로 커밋 직후 아직 반영 전인 순간에도 틀린 회원은 걸러진다.
+ * - 좁힐 수 없는 경우(3글자 미만 contains, 후보가 너무 많음, 꺼짐, 아직 만드는 중)에는 null -> SQL LIKE 로 검색
+ */
+@Slf4j
+@Component
+public class UsernameTrigramIndex {
+
+    static final int GRAM = 3;
+    //prefix 검색용: username 앞에 붙여서 "시작" 위치의 gram 을 따로 색인한다.
+    private static final String PAD = "\u0000\u0000";
+    private static final int BUILD_CHUNK = 10_000;
+
+    private final boolean enabled;
+    private final int maxCandidates;
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> usernames = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private volatile boolean ready;
+
+    @Autowired
+    public UsernameTrigramIndex(EntityManager em, PlatformTransactionManager transactionManager,
+        @Value("${dslshop.search.username-index.enabled:false}") boolean enabled,
+        @Value("${dslshop.search.username-index.max-candidates:1024}") int maxCandidates) {
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    //DB 없이 색인만 사용 (테스트용)
+    UsernameTrigramIndex(int maxCandidates) {
+        this.enabled = true;
+        this.maxCandidates = maxCandidates;
+        this.em = null;
+        this.readOnlyTx = null;
+        this.ready = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        int rows = 0;
+        while (true) {
+            long after = lastId;
+            List<Object[]> chunk = readOnlyTx.execute(status -> em
+                .createQuery("select m.id, m.username from Member m where m.id > :lastId order by m.id", Object[].class)
+                .setParameter("lastId", after)
+                .setMaxResults(BUILD_CHUNK)
+                .getResultList());
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            for (Object[] row : chunk) {
+                put((Long) row[0], (String) row[1]);
+            }
+            rows += chunk.size();
+            lastId = (Long) chunk.get(chunk.size() - 1)[0];
+        }
+        ready = true;
+        log.info("username trigram index built: members={}, grams={}, {}ms",
+            rows, gramCount(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!enabled || !event.isFor(Member.class)) {
+            return;
+        }
+        Long id = (Long) event.getId();
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            afterCommit(id, null);
+        } else if (event.getEntity() != null) { //엔티티 없는 UPDATE 는 username 을 건드리지 않는 bulk 변경
+            afterCommit(id, ((Member) event.getEntity()).getUsername());
+        }
+    }
+
+    /*
+     * usernameContains / usernameStartsWith 를 모두 만족하는 member id
+     * null 이면 색인으로 좁힐 수 없으니 SQL LIKE 로 검색해야 한다.
+     */
+    public Set<Long> candidates(MemberSearchCondition condition) {
+        String contains = condition.getUsernameContains();
+        String prefix = condition.getUsernameStartsWith();
+        boolean byContains = hasText(contains) && contains.length() >= GRAM;
+        if (!enabled || !ready || !(byContains || hasText(prefix)) || hasPendingChanges()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Long> result = null;
+            if (hasText(prefix)) {
+                result = lookup(grams(PAD + prefix));
+            }
+            if (byContains) {
+                result = intersect(result, lookup(grams(contains)));
+            }
+
+            //gram 이 모두 있어도 순서/위치가 다를 수 있으므로 원래 username 으로 확인
+            result.removeIf(id -> !matches(usernames.get(id), contains, prefix));
+            return result.size() > maxCandidates ? null : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return usernames.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(Long id, String username) {
+        lock.writeLock().lock();
+        try {
+            String previous = username != null ? usernames.put(id, username) : usernames.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            if (username != null) {
+                for (String gram : grams(PAD + username)) {
+                    postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            String previous = usernames.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(Long id, String username) {
+        for (String gram : grams(PAD + username)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    //posting 이 작은 gram 부터 교집합 (하나라도 없으면 빈 집합)
+    private Set<Long> lookup(Set<String> grams) {
+        List<Set<Long>> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return new HashSet<>();
+            }
+            lists.add(ids);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static Set<Long> intersect(Set<Long> left, Set<Long> right) {
+        if (left == null) {
+            return right;
+        }
+        left.retainAll(right);
+        return left;
+    }
+
+    private static boolean matches(String username, String contains, String prefix) {
+        if (username == null) {
+            return false;
+        }
+        if (hasText(prefix) && !username.startsWith(prefix)) {
+            return false;
+        }
+        return !hasText(contains) || username.contains(contains);
+    }
+
+    static Set<String> grams(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        if (lower.length() < GRAM) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private int gramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * 커밋될 때 반영 (트랜잭션 밖이면 바로)
+     * id -> 마지막 username (null 이면 삭제), 롤백되면 버린다.
+     */
+    private void afterCommit(Long id, String username) {
+        Map<Long, String> pending = AfterCompletion.batchUntilCommit(this, LinkedHashMap::new,
+            changes -> changes.forEach(this::apply));
+        if (pending == null) {
+            apply(id, username);
+        } else {
+            pending.put(id, username);
+        }
+    }
+
+    private void apply(Long id, String username) {
+        if (username != null) {
+            put(id, username);
+        } else {
+            remove(id);
+        }
+    }
+
+    //현재 트랜잭션에 아직 반영하지 않은 username 변경이 있는지
+    private boolean hasPendingChanges() {
+        return AfterCompletion.hasBatch(this);
+    }
+}
@@ -0,0 +1,38 @@
+package gorany.dslshop.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/*
+ * chunk 단위 bulk 작업의 진행 상황 (chunk 가 커밋될 때마다 갱신)
+ */
+@Getter
+public class BulkReport {
+
+    private final String operation;
+    @Getter(AccessLevel.NONE)
+    private final long startNanos = System.nanoTime();
+    private int chunks;
+    private long rows;
+    private long elapsedMillis;
+
+    BulkReport(String operation) {
+        this.operation = operation;
+    }
+
+    void chunkCommitted(long chunkRows) {
+        chunks++;
+        rows += chunkRows;
+        elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : rows * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkReport [%s chunks=%d rows=%d %dms %.0f rows/sec]",
+            operation, chunks, rows, elapsedMillis, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,162 @@
+package gorany.dslshop.service;
+
+import gorany.dslshop.entity.Board;
+import gorany.dslshop.entity.City;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Reply;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.entity.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * 부하 테스트용 데이터 생성기
+ * chunk 마다 트랜잭션 하나, persist -> flush -> clear 로 영속성 컨텍스트 크기를 chunk 로 제한한다.
+ * insert 는 hibernate.jdbc.batch_size 단위로 JDBC batch 로 나간다. (IDENTITY 키를 쓰는 엔티티는 batch 가 꺼진다)
+ */
+@Slf4j
+@Service
+public class DataSeeder {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    public DataSeeder(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public SeedReport seed(SeedPlan plan) {
+        log.info("seeding {}", plan);
+        SplittableRandom random = new SplittableRandom(plan.getRandomSeed());
+        SeedReport report = new SeedReport();
+
+        long[] teamIds = insert(report, "Team", plan.getTeams(), plan.getChunkSize(),
+            i -> new Team(teamName(i, plan.getTeams())), Team::getId);
+
+        ZipfSampler teamSampler = plan.getTeams() > 0 ? new ZipfSampler(plan.getTeams(), plan.getTeamSkew()) : null;
+        long[] memberIds = insert(report, "Member", plan.getMembers(), plan.getChunkSize(),
+            i -> Member.builder()
+                .username("username" + i)
+                .age(i % 100)
+                .team(teamSampler == null ? null
+                    : em.getReference(Team.class, teamIds[plan.getTeamSkew() == 0 ? i % teamIds.length : teamSampler.next(random)]))
+                .build(),
+            Member::getId);
+
+        long[] userIds = insert(report, "User", plan.getUsers(), plan.getChunkSize(),
+            i -> User.builder().name("user" + i).build(), User::getId);
+
+        long[] boardIds = insert(report, "Board", plan.getBoards(), plan.getChunkSize(),
+            i -> Board.builder()
+                .title("board" + i)
+                .content("board_content" + i)
+                .user(pick(User.class, userIds, random))
+                .build(),
+            Board::getId);
+
+        insert(report, "City", plan.getCities(), plan.getChunkSize(),
+            i -> City.builder().name("city" + i).member(pick(Member.class, memberIds, random)).build(),
+            City::getId);
+
+        if (boardIds.length > 0) {
+            insert(report, "Reply", plan.getReplies(), plan.getChunkSize(),
+                new ReplyFactory(plan, boardIds, userIds, random), Reply::getId);
+        }
+
+        log.info("seeded {}", report);
+        return report;
+    }
+
+    private <T> long[] insert(SeedReport report, String entity, int count, int chunkSize,
+        IntFunction<T> factory, ToLongFunction<T> idOf) {
+
+        long[] ids = new long[Math.max(count, 0)];
+        long start = System.nanoTime();
+
+        for (int from = 0; from < count; from += chunkSize) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(count, from + chunkSize);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                List<T> chunk = new ArrayList<>(chunkTo - chunkFrom);
+                for (int i = chunkFrom; i < chunkTo; i++) {
+                    T created = factory.apply(i);
+                    em.persist(created);
+                    chunk.add(created);
+                }
+                em.flush();
+                for (int i = 0; i < chunk.size(); i++) {
+                    ids[chunkFrom + i] = idOf.applyAsLong(chunk.get(i));
+                }
+                em.clear();
+            });
+        }
+
+        long elapsed = System.nanoTime() - start;
+        report.add(entity, ids.length, elapsed);
+        log.info("seeded {} {} rows in {} ms ({} rows/sec)", entity, ids.length, elapsed / 1_000_000,
+            String.format("%.0f", report.getRowsPerSecond(entity)));
+        return ids;
+    }
+
+    private <T> T pick(Class<T> type, long[] ids, SplittableRandom random) {
+        return ids.length == 0 ? null : em.getReference(type, ids[random.nextInt(ids.length)]);
+    }
+
+    //기존 초기 데이터와 같은 이름(teamA, teamB, ...)을 유지한다.
+    private static String teamName(int index, int teams) {
+        return teams <= 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+
+    /*
+     * 게시글마다 댓글을 연속으로 만들고, replyDepthProbability 확률로 직전 댓글의 대댓글로 단다.
+     * 직전 댓글은 이전 chunk 에서 clear 되어 준영속 상태여도 부모로 참조할 수 있다. (id 만 사용)
+     */
+    private class ReplyFactory implements IntFunction<Reply> {
+
+        private final SeedPlan plan;
+        private final long[] boardIds;
+        private final long[] userIds;
+        private final SplittableRandom random;
+
+        private int boardIndex = -1;
+        private Reply previous;
+
+        ReplyFactory(SeedPlan plan, long[] boardIds, long[] userIds, SplittableRandom random) {
+            this.plan = plan;
+            this.boardIds = boardIds;
+            this.userIds = userIds;
+            this.random = random;
+        }
+
+        @Override
+        public Reply apply(int i) {
+            int currentBoard = (int) ((long) i * boardIds.length / plan.getReplies());
+            if (currentBoard != boardIndex) {
+                boardIndex = currentBoard;
+                previous = null;
+            }
+
+            Board board = em.getReference(Board.class, boardIds[boardIndex]);
+            User user = pick(User.class, userIds, random);
+
+            boolean reReply = previous != null
+                && previous.getDepth() < Reply.MAX_DEPTH
+                && random.nextDouble() < plan.getReplyDepthProbability();
+
+            previous = reReply
+                ? Reply.createReReply("reply" + i, board, user, previous)
+                : Reply.createReply("reply" + i, board, user);
+            return previous;
+        }
+    }
+}
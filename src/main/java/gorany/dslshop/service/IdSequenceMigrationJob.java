@@ -0,0 +1,87 @@
+package gorany.dslshop.service;
+
+import gorany.dslshop.entity.Board;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Reply;
+import gorany.dslshop.entity.User;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * IDENTITY 컬럼으로 쌓인 기존 데이터를 pooled-lo 시퀀스로 옮긴다.
+ * - 시퀀스가 없으면 만들고, max(id) + 1 부터 다시 시작하게 한다. (increment = allocation size)
+ * - 기존 컬럼은 generated by default as identity 라 id 를 직접 넣는 insert 를 그대로 받는다.
+ * - 이 인스턴스가 이미 시퀀스 값을 받아둔 뒤에 돌리면 id 가 겹칠 수 있으므로
+ *   dslshop.id.migrate-on-startup=true 로 두어 요청을 받기 전(싱글톤 초기화 직후)에 돌린다.
+ */
+@Slf4j
+@Service
+public class IdSequenceMigrationJob implements SmartInitializingSingleton {
+
+    private static final Map<Class<?>, String> SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCES.put(Member.class, "member_seq");
+        SEQUENCES.put(Board.class, "board_seq");
+        SEQUENCES.put(Reply.class, "reply_seq");
+        SEQUENCES.put(User.class, "user_seq");
+    }
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final int allocationSize;
+    private final boolean migrateOnStartup;
+
+    public IdSequenceMigrationJob(EntityManager em, PlatformTransactionManager transactionManager,
+        @Value("${spring.jpa.properties.dslshop.id.allocation_size:50}") int allocationSize,
+        @Value("${dslshop.id.migrate-on-startup:false}") boolean migrateOnStartup) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.allocationSize = allocationSize;
+        this.migrateOnStartup = migrateOnStartup;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (migrateOnStartup) {
+            run();
+        }
+    }
+
+    /*
+     * @return 시퀀스 이름 -> 다음에 나갈 id
+     */
+    public Map<String, Long> run() {
+        Map<String, Long> restartedAt = new LinkedHashMap<>();
+        SEQUENCES.forEach((entityClass, sequence) -> transactionTemplate.executeWithoutResult(status -> {
+            AbstractEntityPersister persister = (AbstractEntityPersister) em.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getMetamodel()
+                .entityPersister(entityClass);
+
+            Number maxId = (Number) em.createNativeQuery("select coalesce(max(" + persister.getIdentifierColumnNames()[0]
+                    + "), 0) from " + persister.getTableName())
+                .getSingleResult();
+            long next = maxId.longValue() + 1;
+
+            em.createNativeQuery("create sequence if not exists " + sequence
+                    + " start with " + next + " increment by " + allocationSize)
+                .executeUpdate();
+            em.createNativeQuery("alter sequence " + sequence + " restart with " + next)
+                .executeUpdate();
+
+            log.info("sequence {} restarts at {} (table {})", sequence, next, persister.getTableName());
+            restartedAt.put(sequence, next);
+        }));
+        return restartedAt;
+    }
+}
@@ -0,0 +1,134 @@
+package gorany.dslshop.service;
+
+import static gorany.dslshop.entity.QCity.city;
+import static gorany.dslshop.entity.QMember.member;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.event.EntityChangeEvent;
+import gorany.dslshop.repository.MemberRepository;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * 검색조건에 맞는 회원을 한꺼번에 수정 / 삭제한다.
+ *
+ * - factory.update() 한 번으로 전체를 바꾸면 테이블을 오래 잠그고 영속성 컨텍스트의 엔티티는 옛 값으로 남는다.
+ * - 대상 id 를 id 순으로 chunkSize 건씩 끊어서 chunk 마다 트랜잭션 하나로 커밋한다.
+ *   (chunk 전에 flush, 후에 clear 해서 영속성 컨텍스트에 옛 값이 남지 않게 한다)
+ * - JPQL bulk 연산은 EntityChangeEvent 가 발행되지 않으므로 바뀐 id 마다 직접 발행해서 캐시 / 색인 / 집계가 따라오게 한다.
+ *   (엔티티와 변경 전 값이 없는 이벤트 -> 무효화하거나 다시 만든다)
+ * - chunk 단위로 커밋하므로 트랜잭션 밖에서 호출해야 한다. 중간에 실패하면 이미 커밋된 chunk 는 남는다.
+ */
+@Slf4j
+@Service
+public class MemberBulkService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory factory;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberRepository memberRepository;
+    private final ApplicationEventPublisher publisher;
+    private final int defaultChunkSize;
+
+    public MemberBulkService(EntityManager em, PlatformTransactionManager transactionManager,
+        MemberRepository memberRepository, ApplicationEventPublisher publisher,
+        @Value("${dslshop.bulk.chunk-size:1000}") int defaultChunkSize) {
+        this.em = em;
+        this.factory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.memberRepository = memberRepository;
+        this.publisher = publisher;
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    public BulkReport adjustAge(MemberSearchCondition condition, int delta) {
+        return adjustAge(condition, delta, defaultChunkSize, report -> { });
+    }
+
+    public BulkReport adjustAge(MemberSearchCondition condition, int delta, int chunkSize, Consumer<BulkReport> progress) {
+        return run("adjustAge(" + delta + ")", condition, chunkSize, progress, EntityChangeEvent.Type.UPDATE,
+            ids -> factory
+                .update(member)
+                .set(member.age, member.age.add(delta))
+                .where(member.id.in(ids))
+                .execute());
+    }
+
+    public BulkReport reassignTeam(MemberSearchCondition condition, Long teamId) {
+        return reassignTeam(condition, teamId, defaultChunkSize, report -> { });
+    }
+
+    public BulkReport reassignTeam(MemberSearchCondition condition, Long teamId, int chunkSize, Consumer<BulkReport> progress) {
+        Team target = transactionTemplate.execute(status -> em.find(Team.class, teamId));
+        if (target == null) {
+            throw new IllegalArgumentException("Team not found: " + teamId);
+        }
+        return run("reassignTeam(" + teamId + ")", condition, chunkSize, progress, EntityChangeEvent.Type.UPDATE,
+            ids -> factory
+                .update(member)
+                .set(member.team, em.getReference(Team.class, teamId))
+                .where(member.id.in(ids))
+                .execute());
+    }
+
+    public BulkReport delete(MemberSearchCondition condition) {
+        return delete(condition, defaultChunkSize, report -> { });
+    }
+
+    //city.member_id 가 member 를 참조하므로 city 를 먼저 지운다.
+    public BulkReport delete(MemberSearchCondition condition, int chunkSize, Consumer<BulkReport> progress) {
+        return run("delete", condition, chunkSize, progress, EntityChangeEvent.Type.DELETE,
+            ids -> {
+                factory.delete(city).where(city.member.id.in(ids)).execute();
+                return factory.delete(member).where(member.id.in(ids)).execute();
+            });
+    }
+
+    private BulkReport run(String operation, MemberSearchCondition condition, int chunkSize,
+        Consumer<BulkReport> progress, EntityChangeEvent.Type type, ToLongFunction<List<Long>> mutation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Bulk " + operation + " commits per chunk and must run outside a transaction");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+
+        BulkReport report = new BulkReport(operation);
+        Long lastId = null;
+        while (true) {
+            Long after = lastId;
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> chunk = memberRepository.searchIdsAfter(condition, after, chunkSize);
+                if (chunk.isEmpty()) {
+                    return chunk;
+                }
+                em.flush();
+                long affected = mutation.applyAsLong(chunk);
+                em.clear();
+                chunk.forEach(id -> publisher.publishEvent(new EntityChangeEvent(type, Member.class, id, null)));
+                log.debug("bulk {} chunk after id {}: {} rows", operation, after, affected);
+                return chunk;
+            });
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            report.chunkCommitted(ids.size());
+            progress.accept(report);
+            lastId = ids.get(ids.size() - 1);
+        }
+        log.info("{} condition={}", report, condition);
+        return report;
+    }
+}
@@ -0,0 +1,82 @@
+package gorany.dslshop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mysema.commons.lang.CloseableIterator;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.dto.MemberTeamDTO;
+import gorany.dslshop.repository.MemberJpaRepository;
+import java.io.IOException;
+import java.io.Writer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * 검색 결과를 List 로 모으지 않고 커서로 읽으면서 바로 response 에 쓴다.
+ * 힙 사용량은 결과 크기와 상관없이 fetch size 만큼만 유지된다.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberExportService {
+
+    private static final String CSV_HEADER = "memberId,username,age,teamId,teamName";
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${dslshop.export.fetch-size:500}")
+    private int fetchSize;
+
+    public long exportNdjson(MemberSearchCondition condition, Writer writer) throws IOException {
+        ObjectWriter rowWriter = objectMapper.writerFor(MemberTeamDTO.class);
+        return export(condition, writer, rowWriter::writeValueAsString);
+    }
+
+    public long exportCsv(MemberSearchCondition condition, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        return export(condition, writer, MemberExportService::toCsv);
+    }
+
+    private long export(MemberSearchCondition condition, Writer writer, RowFormatter formatter) throws IOException {
+        long rows = 0;
+        try (CloseableIterator<MemberTeamDTO> iterator = memberJpaRepository.iterate(condition, fetchSize)) {
+            while (iterator.hasNext()) {
+                writer.write(formatter.format(iterator.next()));
+                writer.write('\n');
+                if (++rows % fetchSize == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    static String toCsv(MemberTeamDTO row) {
+        return row.getMemberId() + ","
+            + csvValue(row.getUsername()) + ","
+            + row.getAge() + ","
+            + (row.getTeamId() == null ? "" : row.getTeamId()) + ","
+            + csvValue(row.getTeamName());
+    }
+
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface RowFormatter {
+
+        String format(MemberTeamDTO row) throws IOException;
+    }
+}
@@ -0,0 +1,245 @@
+package gorany.dslshop.service;
+
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.event.EntityChangeEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.persistence.EntityManager;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * Member / Team 변경을 member_team_view 에 반영한다.
+ *
+ * EntityChangeEvent 는 flush 중에 행마다 발행되므로 바로 쓰면 회원 한 명마다 왕복이 하나씩 생긴다.
+ * 트랜잭션 동안 회원 / 팀 id 별 마지막 상태만 모아 두었다가 커밋 직전에 종류별로 batchUpdate 한다.
+ * - Hibernate 의 before-transaction-completion 단계(커밋 시 flush 가 끝난 뒤, 같은 커넥션)에서 쓰므로 롤백되면 같이 롤백된다.
+ * - 같은 트랜잭션에서 view 를 읽을 때는 flush() 로 먼저 써서 자신의 변경을 보게 한다. (MemberTeamViewRepository)
+ *
+ * - Member INSERT: insert, UPDATE: delete + insert, DELETE: delete
+ *   team_name 은 쓰는 시점에 team 테이블에서 읽는다. (프록시를 초기화하지 않고, 같은 트랜잭션의 이름 변경도 반영된다)
+ * - 엔티티가 없는 Member 이벤트(bulk 변경): member / team 테이블에서 다시 읽어서 덮어쓴다.
+ * - Team 이름 변경: 그 팀 회원들의 team_name 을 한 번에 바꾼다.
+ * - JPQL bulk 연산처럼 이벤트가 없는 변경은 MemberTeamViewRebuildJob 으로 맞춘다.
+ */
+@Component
+public class MemberTeamViewProjector {
+
+    private static final String DELETE = "delete from member_team_view where member_id = ?";
+    private static final String INSERT = "insert into member_team_view (member_id, username, age, team_id, team_name) "
+        + "values (?, ?, ?, ?, (select t.name from team t where t.team_id = ?))";
+    private static final String RESYNC = "insert into member_team_view (member_id, username, age, team_id, team_name) "
+        + "select m.member_id, m.username, m.age, t.team_id, t.name "
+        + "from member m left join team t on t.team_id = m.team_id "
+        + "where m.member_id = ?";
+    private static final String RENAME_TEAM = "update member_team_view set team_name = ? where team_id = ?";
+    private static final String DETACH_TEAM = "update member_team_view set team_id = null, team_name = null where team_id = ?";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public MemberTeamViewProjector(EntityManager em, JdbcTemplate jdbcTemplate,
+        @Value("${dslshop.member-team-view.enabled:false}") boolean enabled) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isFor(Member.class)) {
+            onMemberChange(event);
+        } else if (event.isFor(Team.class)) {
+            onTeamChange(event);
+        }
+    }
+
+    //현재 트랜잭션에서 아직 쓰지 않은 변경을 지금 쓴다.
+    public void flush() {
+        Pending pending = TransactionSynchronizationManager.isSynchronizationActive()
+            ? (Pending) TransactionSynchronizationManager.getResource(this) : null;
+        if (pending != null) {
+            pending.write();
+        }
+    }
+
+    private void onMemberChange(EntityChangeEvent event) {
+        Long memberId = (Long) event.getId();
+        Pending pending = pending();
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            pending.member(memberId, MemberRow.DELETED);
+        } else if (event.getEntity() == null) {
+            pending.member(memberId, MemberRow.RESYNC);
+        } else {
+            Member member = (Member) event.getEntity();
+            //같은 트랜잭션에서 insert 된 회원은 update 되어도 insert 로 남긴다.
+            boolean inserted = event.getType() == EntityChangeEvent.Type.INSERT || pending.isInserted(memberId);
+            pending.member(memberId, new MemberRow(member.getUsername(), member.getAge(), teamId(member.getTeam()), inserted));
+        }
+        pending.writeIfUnbound();
+    }
+
+    private void onTeamChange(EntityChangeEvent event) {
+        Long teamId = (Long) event.getId();
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            Pending pending = pending();
+            pending.detachTeam(teamId);
+            pending.writeIfUnbound();
+        } else if (event.getType() == EntityChangeEvent.Type.UPDATE) {
+            String name = ((Team) event.getEntity()).getName();
+            if (!event.hasOldState() || !Objects.equals(event.getOldValue("name"), name)) {
+                Pending pending = pending();
+                pending.renameTeam(teamId, name);
+                pending.writeIfUnbound();
+            }
+        }
+    }
+
+    /*
+     * 트랜잭션마다 하나. 커밋 직전(Hibernate 가 commit flush 를 마친 뒤)에 쓰도록 등록한다.
+     * 트랜잭션 밖이면 모으지 않고 바로 쓴다.
+     */
+    private Pending pending() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return new Pending(false);
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Pending created = new Pending(true);
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MemberTeamViewProjector.this);
+                }
+            });
+            em.unwrap(SessionImplementor.class).getActionQueue().registerProcess(created);
+            pending = created;
+        }
+        return pending;
+    }
+
+    //프록시를 초기화하지 않고 id 만 꺼낸다.
+    private static Long teamId(Team team) {
+        return team != null ? team.getId() : null;
+    }
+
+    private class Pending implements BeforeTransactionCompletionProcess {
+
+        private final boolean bound;
+        private final Map<Long, MemberRow> members = new LinkedHashMap<>();
+        private final Map<Long, String> renamedTeams = new LinkedHashMap<>();
+        private final List<Long> detachedTeams = new ArrayList<>();
+
+        Pending(boolean bound) {
+            this.bound = bound;
+        }
+
+        void member(Long memberId, MemberRow row) {
+            members.put(memberId, row);
+        }
+
+        boolean isInserted(Long memberId) {
+            MemberRow row = members.get(memberId);
+            return row != null && row.inserted;
+        }
+
+        void renameTeam(Long teamId, String name) {
+            renamedTeams.put(teamId, name);
+        }
+
+        void detachTeam(Long teamId) {
+            renamedTeams.remove(teamId);
+            detachedTeams.add(teamId);
+        }
+
+        void writeIfUnbound() {
+            if (!bound) {
+                write();
+            }
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            write();
+        }
+
+        /*
+         * 회원 행을 먼저 지우고 다시 넣은 뒤 팀 이름을 바꾼다. (종류마다 batchUpdate 한 번)
+         * 새로 insert 된 회원은 지울 행이 없으므로 delete 를 건너뛴다.
+         */
+        void write() {
+            List<Object[]> deletes = new ArrayList<>();
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> resyncs = new ArrayList<>();
+            for (Map.Entry<Long, MemberRow> entry : members.entrySet()) {
+                Long memberId = entry.getKey();
+                MemberRow row = entry.getValue();
+                if (!row.inserted) {
+                    deletes.add(new Object[]{memberId});
+                }
+                if (row == MemberRow.RESYNC) {
+                    resyncs.add(new Object[]{memberId});
+                } else if (row != MemberRow.DELETED) {
+                    inserts.add(new Object[]{memberId, row.username, row.age, row.teamId, row.teamId});
+                }
+            }
+            List<Object[]> renames = new ArrayList<>();
+            renamedTeams.forEach((teamId, name) -> renames.add(new Object[]{name, teamId}));
+            List<Object[]> detaches = new ArrayList<>();
+            detachedTeams.forEach(teamId -> detaches.add(new Object[]{teamId}));
+
+            batchUpdate(DELETE, deletes);
+            batchUpdate(INSERT, inserts);
+            batchUpdate(RESYNC, resyncs);
+            batchUpdate(RENAME_TEAM, renames);
+            batchUpdate(DETACH_TEAM, detaches);
+
+            members.clear();
+            renamedTeams.clear();
+            detachedTeams.clear();
+        }
+
+        private void batchUpdate(String sql, List<Object[]> args) {
+            if (!args.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, args);
+            }
+        }
+    }
+
+    private static class MemberRow {
+
+        static final MemberRow DELETED = new MemberRow(null, 0, null, false);
+        static final MemberRow RESYNC = new MemberRow(null, 0, null, false);
+
+        private final String username;
+        private final int age;
+        private final Long teamId;
+        private final boolean inserted;
+
+        MemberRow(String username, int age, Long teamId, boolean inserted) {
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+            this.inserted = inserted;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package gorany.dslshop.service;
+
+import gorany.dslshop.dto.MemberTeamViewCheckDTO;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * member_team_view 를 member / team 으로부터 다시 만들고(rebuild), 어긋난 행이 있는지 확인한다(check).
+ *
+ * rebuild: member_id 순으로 chunkSize 건씩, chunk 마다 트랜잭션 하나로 그 id 구간의 view 행을 지우고 다시 채운다.
+ * 테이블을 통째로 비우지 않으므로 도는 동안에도 검색은 (구간별로) 결과를 돌려준다.
+ * 마지막 member 이후에 남은 view 행은 마지막에 지운다.
+ *
+ * 시작할 때(ApplicationReadyEvent) view 가 비어 있으면 rebuild 한다.
+ * ddl-auto: create 는 매번 빈 테이블을 만들고, @PostConstruct 에서 넣은 초기 데이터는 이벤트 리스너가 등록되기 전이라 projector 가 보지 못한다.
+ */
+@Slf4j
+@Service
+public class MemberTeamViewRebuildJob {
+
+    private static final String NEXT_CHUNK_END = "select max(member_id) from "
+        + "(select member_id from member where member_id > ? order by member_id limit ?) chunk";
+    private static final String DELETE_RANGE = "delete from member_team_view where member_id > ? and member_id <= ?";
+    private static final String INSERT_RANGE = "insert into member_team_view (member_id, username, age, team_id, team_name) "
+        + "select m.member_id, m.username, m.age, t.team_id, t.name "
+        + "from member m left join team t on t.team_id = m.team_id "
+        + "where m.member_id > ? and m.member_id <= ?";
+    private static final String DELETE_AFTER = "delete from member_team_view where member_id > ?";
+
+    private static final String MISSING = "from member m "
+        + "where not exists (select 1 from member_team_view v where v.member_id = m.member_id)";
+    private static final String ORPHANED = "from member_team_view v "
+        + "where not exists (select 1 from member m where m.member_id = v.member_id)";
+    private static final String STALE = "from member m "
+        + "join member_team_view v on v.member_id = m.member_id "
+        + "left join team t on t.team_id = m.team_id "
+        + "where v.username is distinct from m.username or v.age <> m.age "
+        + "or v.team_id is distinct from m.team_id or v.team_name is distinct from t.name";
+    private static final int SAMPLE_SIZE = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final MemberTeamViewProjector projector;
+    private final boolean rebuildOnStartup;
+    private final int chunkSize;
+
+    public MemberTeamViewRebuildJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+        MemberTeamViewProjector projector,
+        @Value("${dslshop.member-team-view.rebuild-on-startup:false}") boolean rebuildOnStartup,
+        @Value("${dslshop.member-team-view.chunk-size:10000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        this.projector = projector;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (projector.isEnabled() && (rebuildOnStartup || isEmpty())) {
+            rebuild();
+        }
+    }
+
+    public long rebuild() {
+        return rebuild(chunkSize);
+    }
+
+    public long rebuild(int chunkSize) {
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        long rows = 0;
+        while (true) {
+            long from = lastId;
+            Long to = jdbcTemplate.queryForObject(NEXT_CHUNK_END, Long.class, from, chunkSize);
+            if (to == null) {
+                break;
+            }
+            Integer inserted = transactionTemplate.execute(status -> {
+                jdbcTemplate.update(DELETE_RANGE, from, to);
+                return jdbcTemplate.update(INSERT_RANGE, from, to);
+            });
+            rows += inserted != null ? inserted : 0;
+            lastId = to;
+        }
+        long end = lastId;
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(DELETE_AFTER, end));
+        log.info("member_team_view rebuilt: rows={}, {}ms", rows, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    public MemberTeamViewCheckDTO check() {
+        return readOnlyTx.execute(status -> {
+            projector.flush();
+            long missing = count(MISSING);
+            long orphaned = count(ORPHANED);
+            long stale = count(STALE);
+            List<Long> samples = jdbcTemplate.queryForList(
+                "select m.member_id " + MISSING + " union select v.member_id " + ORPHANED
+                    + " union select m.member_id " + STALE + " order by 1 limit " + SAMPLE_SIZE, Long.class);
+            return new MemberTeamViewCheckDTO(
+                jdbcTemplate.queryForObject("select count(*) from member", Long.class),
+                jdbcTemplate.queryForObject("select count(*) from member_team_view", Long.class),
+                missing, orphaned, stale, samples);
+        });
+    }
+
+    private boolean isEmpty() {
+        return jdbcTemplate.queryForList("select member_id from member_team_view limit 1", Long.class).isEmpty();
+    }
+
+    private long count(String from) {
+        Long count = jdbcTemplate.queryForObject("select count(*) " + from, Long.class);
+        return count != null ? count : 0L;
+    }
+}
@@ -0,0 +1,62 @@
+package gorany.dslshop.service;
+
+import static gorany.dslshop.entity.QReply.reply;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.entity.QReply;
+import gorany.dslshop.entity.Reply;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * path (또는 path_key) 가 없는 기존 댓글의 materialized path / path_key / depth 를 채운다.
+ * 부모가 루트이거나 이미 path 를 가진 댓글부터 chunk 단위(트랜잭션 하나씩)로 처리하므로
+ * 반복할수록 한 단계씩 아래로 내려가고, 남은 대상이 없으면 끝난다.
+ */
+@Service
+public class ReplyPathBackfillJob {
+
+    private final EntityManager em;
+    private final JPAQueryFactory factory;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReplyPathBackfillJob(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.factory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public long run(int chunkSize) {
+        long total = 0;
+        while (true) {
+            Integer updated = transactionTemplate.execute(status -> backfillChunk(chunkSize));
+            if (updated == null || updated == 0) {
+                return total;
+            }
+            total += updated;
+        }
+    }
+
+    private int backfillChunk(int chunkSize) {
+        QReply parent = new QReply("parent");
+        List<Reply> replies = factory
+            .selectFrom(reply)
+            .leftJoin(reply.parent, parent).fetchJoin()
+            .where(
+                reply.pathKey.isNull(),
+                parent.id.isNull().or(parent.path.isNotNull())
+            )
+            .orderBy(reply.id.asc())
+            .limit(chunkSize)
+            .fetch();
+
+        replies.forEach(Reply::assignPath);
+
+        em.flush();
+        em.clear();
+        return replies.size();
+    }
+}
@@ -0,0 +1,124 @@
+package gorany.dslshop.service;
+
+import gorany.dslshop.dto.ReplyDTO;
+import gorany.dslshop.dto.ReplyNode;
+import gorany.dslshop.dto.ReplyThreadDTO;
+import gorany.dslshop.repository.ReplyQueryRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * 게시글의 댓글을 쿼리 한 번으로 읽어서 메모리에서 O(n) 으로 트리를 만든다.
+ * children 을 LAZY 로 따라가며 노드마다 select 가 나가는 N+1 을 피하기 위함.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ReplyThreadService {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final ReplyQueryRepository replyQueryRepository;
+
+    public ReplyThreadDTO loadThread(Long boardId) {
+        return loadThread(boardId, UNLIMITED, UNLIMITED);
+    }
+
+    /*
+     * maxDepth: 포함할 최대 depth (최상위 댓글이 0)
+     * maxChildren: 한 노드(최상위 목록 포함)에서 보여줄 최대 자식 수, 나머지는 omitted 로 센다.
+     */
+    public ReplyThreadDTO loadThread(Long boardId, int maxDepth, int maxChildren) {
+        return assemble(boardId, replyQueryRepository.findAllByBoard(boardId), maxDepth, maxChildren);
+    }
+
+    //게시글의 앞쪽 threads 개 스레드만 (materialized path range scan)
+    public ReplyThreadDTO loadTopThreads(Long boardId, int threads, int maxDepth, int maxChildren) {
+        return assemble(boardId, replyQueryRepository.findTopThreads(boardId, threads), maxDepth, maxChildren);
+    }
+
+    //replyId 를 루트로 하는 서브트리 (materialized path range scan), 게시글의 댓글이 아니면 빈 스레드
+    public ReplyThreadDTO loadSubtree(Long boardId, Long replyId, int maxDepth, int maxChildren) {
+        return assemble(boardId, replyQueryRepository.findSubtree(boardId, replyId), maxDepth, maxChildren);
+    }
+
+    /*
+     * rows 는 부모가 자식보다 먼저 나오는 순서(id 순 또는 path 순)여야 하고, 형제의 순서는 rows 의 순서를 따른다.
+     * rows 안에 부모가 없는 댓글은 루트가 된다.
+     */
+    private ReplyThreadDTO assemble(Long boardId, List<ReplyDTO> rows, int maxDepth, int maxChildren) {
+        Map<Long, Builder> builders = new HashMap<>(rows.size() * 2);
+        for (ReplyDTO row : rows) {
+            builders.put(row.getReplyId(), new Builder(row));
+        }
+
+        List<Builder> roots = new ArrayList<>();
+        for (ReplyDTO row : rows) {
+            Builder parent = row.getParentId() != null ? builders.get(row.getParentId()) : null;
+            if (parent != null) {
+                parent.children.add(builders.get(row.getReplyId()));
+            } else {
+                roots.add(builders.get(row.getReplyId()));
+            }
+        }
+
+        //BFS 순서로 포함할 노드를 고르고, 역순으로 불변 노드를 만든다. (재귀 없이 깊은 스레드도 처리)
+        List<Builder> includedRoots = limit(roots, maxChildren);
+        List<Builder> order = new ArrayList<>(includedRoots);
+        for (Builder root : includedRoots) {
+            root.depth = 0;
+        }
+        for (int i = 0; i < order.size(); i++) {
+            Builder current = order.get(i);
+            if (current.depth >= maxDepth) {
+                current.included = List.of();
+                continue;
+            }
+            current.included = limit(current.children, maxChildren);
+            for (Builder child : current.included) {
+                child.depth = current.depth + 1;
+            }
+            order.addAll(current.included);
+        }
+
+        for (int i = order.size() - 1; i >= 0; i--) {
+            order.get(i).build();
+        }
+
+        List<ReplyNode> replies = new ArrayList<>(includedRoots.size());
+        for (Builder root : includedRoots) {
+            replies.add(root.node);
+        }
+        return new ReplyThreadDTO(boardId, rows.size(), replies, roots.size() - includedRoots.size());
+    }
+
+    private static List<Builder> limit(List<Builder> builders, int max) {
+        return builders.size() > max ? builders.subList(0, Math.max(0, max)) : builders;
+    }
+
+    private static class Builder {
+
+        private final ReplyDTO row;
+        private final List<Builder> children = new ArrayList<>();
+        private List<Builder> included;
+        private int depth;
+        private ReplyNode node;
+
+        Builder(ReplyDTO row) {
+            this.row = row;
+        }
+
+        void build() {
+            List<ReplyNode> childNodes = new ArrayList<>(included.size());
+            for (Builder child : included) {
+                childNodes.add(child.node);
+            }
+            node = new ReplyNode(row, depth, childNodes, children.size() - included.size());
+        }
+    }
+}
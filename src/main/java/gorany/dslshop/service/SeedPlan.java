@@ -0,0 +1,28 @@
+package gorany.dslshop.service;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@Builder
+@ToString
+public class SeedPlan {
+
+    private final int teams;
+    private final int members;
+    private final int users;
+    private final int boards;
+    private final int cities;
+    private final int replies;
+
+    //팀 배정 Zipf 지수 (0 이면 teamA, teamB, ... 순서대로 돌아가며 배정)
+    private final double teamSkew;
+    //댓글이 같은 게시글의 직전 댓글에 대한 대댓글일 확률 (높을수록 스레드가 깊어진다)
+    private final double replyDepthProbability;
+
+    @Builder.Default
+    private final int chunkSize = 1000;
+    @Builder.Default
+    private final long randomSeed = 42L;
+}
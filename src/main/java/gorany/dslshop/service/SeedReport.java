@@ -0,0 +1,31 @@
+package gorany.dslshop.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SeedReport {
+
+    private final Map<String, Long> rows = new LinkedHashMap<>();
+    private final Map<String, Double> rowsPerSecond = new LinkedHashMap<>();
+
+    void add(String entity, long count, long elapsedNanos) {
+        rows.put(entity, count);
+        rowsPerSecond.put(entity, elapsedNanos == 0 ? 0.0 : count * 1_000_000_000.0 / elapsedNanos);
+    }
+
+    public long getRows(String entity) {
+        return rows.getOrDefault(entity, 0L);
+    }
+
+    public double getRowsPerSecond(String entity) {
+        return rowsPerSecond.getOrDefault(entity, 0.0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SeedReport");
+        rows.forEach((entity, count) -> sb.append(String.format(" [%s rows=%d %.0f rows/sec]",
+            entity, count, rowsPerSecond.get(entity))));
+        return sb.toString();
+    }
+}
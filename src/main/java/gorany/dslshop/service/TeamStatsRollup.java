@@ -0,0 +1,247 @@
+package gorany.dslshop.service;
+
+import gorany.dslshop.dto.TeamStatsDTO;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.event.AfterCompletion;
+import gorany.dslshop.event.EntityChangeEvent;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * 팀별 회원 수 / 나이 합계, 평균, 최소, 최대 / 나이 분포 (읽기 모델)
+ *
+ * - 시작할 때 team left join member group by 한 번으로 만든다.
+ * - 이후에는 EntityChangeEvent 로 Member 생성 / 삭제 / 나이 변경 / 팀 변경, Team 생성 / 이름 변경 / 삭제를
+ *   트랜잭션 단위로 모았다가 커밋된 것만 반영한다.
+ * - 팀마다 나이별 회원 수를 들고 있어서 삭제가 있어도 min / max 를 다시 스캔하지 않는다.
+ * - 변경 전 값을 모르는 UPDATE / DELETE 가 있으면 다음 조회 때 다시 만든다.
+ *   JPQL bulk 연산처럼 이벤트가 없는 변경 뒤에는 markStale() 을 호출해야 한다.
+ */
+@Slf4j
+@Service
+public class TeamStatsRollup {
+
+    private static final String REBUILD_QUERY = "select t.id, t.name, m.age, count(m.id) "
+        + "from Team t left join t.members m "
+        + "group by t.id, t.name, m.age";
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+    private final int bucketWidth;
+
+    private final Map<Long, TeamStats> teams = new HashMap<>();
+    private boolean stale = true;
+
+    public TeamStatsRollup(EntityManager em, PlatformTransactionManager transactionManager,
+        @Value("${dslshop.team-stats.enabled:false}") boolean enabled,
+        @Value("${dslshop.team-stats.histogram-bucket:10}") int bucketWidth) {
+        this.em = em;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        this.enabled = enabled;
+        this.bucketWidth = bucketWidth;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    //팀 수에 비례 (꺼져 있거나 다시 만들어야 하면 group by 한 번)
+    public List<TeamStatsDTO> getStats() {
+        if (!enabled) {
+            return toDTOs(load());
+        }
+        synchronized (this) {
+            if (stale) {
+                rebuild();
+            }
+            return toDTOs(teams);
+        }
+    }
+
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, TeamStats> loaded = load();
+        teams.clear();
+        teams.putAll(loaded);
+        stale = false;
+        log.info("team stats rebuilt: teams={}, {}ms", teams.size(), System.currentTimeMillis() - start);
+    }
+
+    public synchronized void markStale() {
+        stale = true;
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isFor(Member.class)) {
+            onMemberChange(event);
+        } else if (event.isFor(Team.class)) {
+            onTeamChange(event);
+        }
+    }
+
+    private void onMemberChange(EntityChangeEvent event) {
+        Member member = (Member) event.getEntity();
+        switch (event.getType()) {
+            case INSERT:
+                //커밋 때가 아니라 insert 된 값으로 (같은 트랜잭션의 이후 변경은 UPDATE 이벤트로 따로 온다)
+                Long insertedTeamId = flushedTeamId(event, member);
+                int insertedAge = flushedAge(event, member);
+                afterCommit(() -> addMember(insertedTeamId, insertedAge, 1));
+                break;
+            case UPDATE:
+                if (!event.hasOldState()) {
+                    afterCommit(this::markStale);
+                    break;
+                }
+                Long oldTeamId = teamId((Team) event.getOldValue("team"));
+                int oldAge = (Integer) event.getOldValue("age");
+                Long newTeamId = flushedTeamId(event, member);
+                int newAge = flushedAge(event, member);
+                if (oldAge != newAge || !Objects.equals(oldTeamId, newTeamId)) {
+                    afterCommit(() -> {
+                        addMember(oldTeamId, oldAge, -1);
+                        addMember(newTeamId, newAge, 1);
+                    });
+                }
+                break;
+            case DELETE:
+                if (!event.hasOldState()) {
+                    afterCommit(this::markStale);
+                    break;
+                }
+                Long deletedTeamId = teamId((Team) event.getOldValue("team"));
+                int deletedAge = (Integer) event.getOldValue("age");
+                afterCommit(() -> addMember(deletedTeamId, deletedAge, -1));
+                break;
+        }
+    }
+
+    private void onTeamChange(EntityChangeEvent event) {
+        Long teamId = (Long) event.getId();
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            afterCommit(() -> removeTeam(teamId));
+        } else {
+            String name = ((Team) event.getEntity()).getName();
+            afterCommit(() -> renameTeam(teamId, name));
+        }
+    }
+
+    private synchronized void addMember(Long teamId, int age, int delta) {
+        if (teamId == null || stale) {
+            return;
+        }
+        teams.computeIfAbsent(teamId, id -> new TeamStats(null)).add(age, delta);
+    }
+
+    private synchronized void renameTeam(Long teamId, String name) {
+        if (!stale) {
+            teams.computeIfAbsent(teamId, id -> new TeamStats(name)).name = name;
+        }
+    }
+
+    private synchronized void removeTeam(Long teamId) {
+        teams.remove(teamId);
+    }
+
+    private Map<Long, TeamStats> load() {
+        List<Object[]> rows = readOnlyTx.execute(status -> em.createQuery(REBUILD_QUERY, Object[].class).getResultList());
+        Map<Long, TeamStats> loaded = new HashMap<>();
+        for (Object[] row : rows) {
+            TeamStats stats = loaded.computeIfAbsent((Long) row[0], id -> new TeamStats((String) row[1]));
+            if (row[2] != null) {
+                stats.add((Integer) row[2], (Long) row[3]);
+            }
+        }
+        return loaded;
+    }
+
+    private List<TeamStatsDTO> toDTOs(Map<Long, TeamStats> source) {
+        return source.entrySet().stream()
+            .map(entry -> entry.getValue().toDTO(entry.getKey(), bucketWidth))
+            .sorted(Comparator.comparing(TeamStatsDTO::getTeamName, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(TeamStatsDTO::getTeamId))
+            .collect(Collectors.toList());
+    }
+
+    //프록시를 초기화하지 않고 id 만 꺼낸다.
+    private static Long teamId(Team team) {
+        return team != null ? team.getId() : null;
+    }
+
+    //flush 된 값 (이벤트에 없으면 지금 엔티티의 값)
+    private static Long flushedTeamId(EntityChangeEvent event, Member member) {
+        return teamId(event.hasState() ? (Team) event.getValue("team") : member.getTeam());
+    }
+
+    private static int flushedAge(EntityChangeEvent event, Member member) {
+        return event.hasState() ? (Integer) event.getValue("age") : member.getAge();
+    }
+
+    //커밋될 때 순서대로 반영하고 롤백되면 버린다. (트랜잭션 밖이면 바로)
+    private void afterCommit(Runnable change) {
+        List<Runnable> pending = AfterCompletion.batchUntilCommit(this, ArrayList::new,
+            changes -> changes.forEach(Runnable::run));
+        if (pending == null) {
+            change.run();
+        } else {
+            pending.add(change);
+        }
+    }
+
+    private static class TeamStats {
+
+        private String name;
+        private long count;
+        private long sumAge;
+        //나이 -> 회원 수
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+
+        TeamStats(String name) {
+            this.name = name;
+        }
+
+        void add(int age, long delta) {
+            count += delta;
+            sumAge += age * delta;
+            ages.merge(age, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+
+        TeamStatsDTO toDTO(Long teamId, int bucketWidth) {
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Long> entry : ages.entrySet()) {
+                int from = Math.floorDiv(entry.getKey(), bucketWidth) * bucketWidth;
+                histogram.merge(from + "-" + (from + bucketWidth - 1), entry.getValue(), Long::sum);
+            }
+            return new TeamStatsDTO(teamId, name, count, sumAge,
+                count == 0 ? null : (double) sumAge / count,
+                ages.isEmpty() ? null : ages.firstKey(),
+                ages.isEmpty() ? null : ages.lastKey(),
+                histogram);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package gorany.dslshop.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ * 0 .. size-1 중 하나를 Zipf 분포로 고른다. (rank k 의 확률 ∝ 1 / (k+1)^exponent)
+ * exponent 가 0 이면 균등 분포
+ */
+class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int size, double exponent) {
+        cumulative = new double[size];
+        double sum = 0;
+        for (int k = 0; k < size; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < size; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    int next(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
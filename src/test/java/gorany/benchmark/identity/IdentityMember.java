@@ -0,0 +1,36 @@
+package gorany.benchmark.identity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/*
+ * IdGenerationBenchmarkTest 의 IDENTITY 비교용 엔티티 (Member 와 같은 컬럼)
+ * gorany.dslshop 밖에 두어서 애플리케이션 / @DataJpaTest 의 엔티티 스캔에 잡히지 않게 하고,
+ * 벤치마크가 따로 만드는 persistence unit 에만 올린다.
+ */
+@Entity
+@Table(name = "bench_identity_member")
+public class IdentityMember {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String username;
+    private int age;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    protected IdentityMember() {
+    }
+
+    public IdentityMember(String username, int age, Long teamId) {
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+}
@@ -0,0 +1,30 @@
+package gorany.benchmark.identity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+//IdGenerationBenchmarkTest 의 IDENTITY 비교용 엔티티 (IdentityMember 참고)
+@Entity
+@Table(name = "bench_identity_reply")
+public class IdentityReply {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String content;
+
+    @Column(name = "board_id")
+    private Long boardId;
+
+    protected IdentityReply() {
+    }
+
+    public IdentityReply(String content, Long boardId) {
+        this.content = content;
+        this.boardId = boardId;
+    }
+}
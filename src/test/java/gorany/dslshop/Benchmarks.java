@@ -0,0 +1,65 @@
+package gorany.dslshop;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * @Tag("benchmark") 테스트(./gradlew benchmark)의 공통 측정 루프
+ * warmup 번 돌린 뒤 iterations 번 돌린 시간과 현재 스레드의 할당량을 잰다.
+ * 결과는 report 로 "[이름 benchmark] ..." 한 줄씩 출력한다.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static Measurement measure(int warmup, int iterations, Runnable run) {
+        for (int i = 0; i < warmup; i++) {
+            run.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            run.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return new Measurement(iterations, nanos, bytes);
+    }
+
+    public static void report(String benchmark, String format, Object... args) {
+        System.out.printf("[" + benchmark + " benchmark] " + format + "%n", args);
+    }
+
+    public static final class Measurement {
+
+        private final int iterations;
+        private final long nanos;
+        private final long bytes;
+
+        private Measurement(int iterations, long nanos, long bytes) {
+            this.iterations = iterations;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        public double millisPerOp() {
+            return nanos / 1_000_000.0 / iterations;
+        }
+
+        public double microsPerOp() {
+            return nanos / 1_000.0 / iterations;
+        }
+
+        public long bytesPerOp() {
+            return bytes / iterations;
+        }
+
+        //측정한 전체 시간 동안 units 개를 처리했을 때 초당 처리량
+        public double perSecond(long units) {
+            return units * 1_000_000_000.0 / nanos;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package gorany.dslshop;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorAutoConfiguration;
+import gorany.dslshop.cache.MemberCountCache;
+import gorany.dslshop.cache.MemberSearchResultCache;
+import gorany.dslshop.metrics.JdbcMetricsListener;
+import gorany.dslshop.metrics.StatementGuard;
+import gorany.dslshop.repository.ParallelCountExecutor;
+import gorany.dslshop.search.UsernameTrigramIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/*
+ * @DataJpaTest 는 @Component 를 스캔하지 않으므로
+ * MemberRepositoryCustomImpl 이 의존하는 빈들을 직접 올려준다.
+ * StatementScope 로 statement 수를 확인할 수 있도록 p6spy DataSource 래핑도 켠다.
+ * (statement 는 JdbcMetricsListener 가 받으므로 지표용 SimpleMeterRegistry 도 같이 올린다)
+ */
+@TestConfiguration
+@ImportAutoConfiguration(DataSourceDecoratorAutoConfiguration.class)
+@Import({MemberCountCache.class, MemberSearchResultCache.class, ParallelCountExecutor.class, StatementGuard.class,
+    JdbcMetricsListener.class, UsernameTrigramIndex.class})
+public class RepositoryTestConfig {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
@@ -0,0 +1,85 @@
+package gorany.dslshop.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.event.EntityChangeEvent;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MemberCountCacheTest {
+
+    AtomicLong now = new AtomicLong();
+    AtomicLong countQueries = new AtomicLong();
+
+    @Test
+    @DisplayName("정규화된 조건이 같으면 count 쿼리를 다시 실행하지 않는다")
+    void hitByNormalizedCondition() throws Exception {
+        //given
+        MemberCountCache cache = new MemberCountCache(true, 1000, 100, false, 0, 0, now::get);
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setUsername(" ");
+        blank.setAgeGoe(10);
+        MemberSearchCondition none = new MemberSearchCondition();
+        none.setAgeGoe(10);
+
+        //when
+        long first = cache.get(blank, () -> count(42));
+        long second = cache.get(none, () -> count(42));
+
+        //then
+        assertThat(first).isEqualTo(42);
+        assertThat(second).isEqualTo(42);
+        assertThat(countQueries.get()).isEqualTo(1);
+        assertThat(cache.stats().getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("TTL 이 지나거나 Member 쓰기가 있으면 다시 count 한다")
+    void expireAndInvalidate() throws Exception {
+        //given
+        MemberCountCache cache = new MemberCountCache(true, 1000, 100, false, 0, 0, now::get);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        cache.get(condition, () -> count(1));
+
+        //when
+        now.addAndGet(1000);
+        long afterTtl = cache.get(condition, () -> count(2));
+        cache.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.INSERT, Member.class, 1L, null));
+        long afterWrite = cache.get(condition, () -> count(3));
+
+        //then
+        assertThat(afterTtl).isEqualTo(2);
+        assertThat(afterWrite).isEqualTo(3);
+        assertThat(countQueries.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("estimate 모드에서는 threshold 이상인 total 을 쓰기 후에도 유지한다")
+    void estimatedTotalSurvivesWrites() throws Exception {
+        //given
+        MemberCountCache cache = new MemberCountCache(true, 1000, 100, true, 100, 10_000, now::get);
+        MemberSearchCondition large = new MemberSearchCondition();
+        MemberSearchCondition small = new MemberSearchCondition();
+        small.setTeamName("teamA");
+        cache.get(large, () -> count(500));
+        cache.get(small, () -> count(5));
+
+        //when
+        cache.invalidate();
+        now.addAndGet(5000);
+        long largeTotal = cache.get(large, () -> count(501));
+        long smallTotal = cache.get(small, () -> count(6));
+
+        //then
+        assertThat(largeTotal).isEqualTo(500);
+        assertThat(smallTotal).isEqualTo(6);
+    }
+
+    private long count(long value) {
+        countQueries.incrementAndGet();
+        return value;
+    }
+}
@@ -0,0 +1,120 @@
+package gorany.dslshop.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.cache.MemberSearchResultCache.Policy;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.event.EntityChangeEvent;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+class MemberSearchResultCacheTest {
+
+    AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("같은 조건 + 같은 페이지면 캐시에서 꺼낸다")
+    void hit() throws Exception {
+        //given
+        MemberSearchResultCache cache = cache(10, 100, Policy.LRU);
+
+        //when
+        get(cache, "teamA", 0, 3);
+        get(cache, "teamA", 0, 3);
+        get(cache, "teamA", 1, 3);
+
+        //then
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.stats().getHits()).isEqualTo(1);
+        assertThat(cache.stats().getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("LRU: 가장 오래 안 쓴 결과부터 내보낸다")
+    void lruEviction() throws Exception {
+        //given
+        MemberSearchResultCache cache = cache(2, 100, Policy.LRU);
+        get(cache, "teamA", 0, 1);
+        get(cache, "teamB", 0, 1);
+        get(cache, "teamA", 0, 1);
+
+        //when
+        get(cache, "teamC", 0, 1);
+        loads.set(0);
+        get(cache, "teamA", 0, 1);
+        get(cache, "teamB", 0, 1);
+
+        //then
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.stats().getEvictions()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("LFU: 가장 적게 쓴 결과부터 내보낸다")
+    void lfuEviction() throws Exception {
+        //given
+        MemberSearchResultCache cache = cache(2, 100, Policy.LFU);
+        get(cache, "teamA", 0, 1);
+        get(cache, "teamA", 0, 1);
+        get(cache, "teamB", 0, 1);
+        get(cache, "teamB", 0, 1);
+        get(cache, "teamB", 0, 1);
+
+        //when
+        get(cache, "teamC", 0, 1);
+        loads.set(0);
+        get(cache, "teamB", 0, 1);
+
+        //then
+        assertThat(loads.get()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("결과 row 수의 합이 max-rows 를 넘지 않는다")
+    void sizeAware() throws Exception {
+        //given
+        MemberSearchResultCache cache = cache(100, 10, Policy.LRU);
+
+        //when
+        get(cache, "teamA", 0, 6);
+        get(cache, "teamB", 0, 6);
+        get(cache, "teamC", 0, 11);
+
+        //then
+        assertThat(cache.rows()).isEqualTo(6);
+        assertThat(cache.stats().getSize()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Team 쓰기 이벤트가 오면 무효화한다")
+    void invalidateOnWrite() throws Exception {
+        //given
+        MemberSearchResultCache cache = cache(10, 100, Policy.LRU);
+        get(cache, "teamA", 0, 3);
+
+        //when
+        cache.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Team.class, 1L, null));
+        get(cache, "teamA", 0, 3);
+
+        //then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private MemberSearchResultCache cache(int maxEntries, long maxRows, Policy policy) {
+        return new MemberSearchResultCache(true, maxEntries, maxRows, 60_000, policy, () -> 0L);
+    }
+
+    private List<Integer> get(MemberSearchResultCache cache, String teamName, int page, int rows) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return cache.get("search", condition, PageRequest.of(page, 10), () -> {
+            loads.incrementAndGet();
+            return Collections.nCopies(rows, 0);
+        }, List::size);
+    }
+}
@@ -0,0 +1,170 @@
+package gorany.dslshop.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import gorany.dslshop.dto.MemberSearchCondition;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+class SearchCoalescerTest {
+
+    static final int CALLERS = 8;
+
+    MeterRegistry registry;
+    SearchCoalescer coalescer;
+    ExecutorService executor;
+
+    @BeforeEach
+    void before() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new SearchCoalescer(true, 5_000, registry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("같은 조건의 동시 요청은 한 번만 실행하고 모두 같은 결과를 받는다")
+    void coalesce() throws Exception {
+        //given
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> loader = () -> {
+            executions.incrementAndGet();
+            await(release);
+            return "result";
+        };
+
+        //when
+        List<Future<String>> results = submitAll(loader);
+        waitForFollowers(CALLERS - 1);
+        release.countDown();
+
+        //then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(coalescer.inFlight()).isZero();
+        assertThat(count("leader")).isEqualTo(1);
+        assertThat(count("follower")).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    @DisplayName("실행이 실패하면 기다리던 요청도 같은 예외를 받고, 다음 요청은 다시 실행한다")
+    void failure() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> failing = () -> {
+            await(release);
+            throw new IllegalStateException("boom");
+        };
+
+        //when
+        List<Future<String>> results = submitAll(failing);
+        waitForFollowers(CALLERS - 1);
+        release.countDown();
+
+        //then
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        }
+        assertThat(coalescer.execute("search", condition(), PageRequest.of(0, 10), () -> "again")).isEqualTo("again");
+    }
+
+    @Test
+    @DisplayName("leader 가 wait-millis 안에 끝나지 않으면 기다리던 요청은 직접 실행한다")
+    void followerTimeout() throws Exception {
+        //given
+        SearchCoalescer shortWait = new SearchCoalescer(true, 50, registry);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        Future<String> leader = executor.submit(() -> shortWait.execute("search", condition(), PageRequest.of(0, 10), () -> {
+            executions.incrementAndGet();
+            await(release);
+            return "leader";
+        }));
+        while (shortWait.inFlight() == 0) {
+            Thread.sleep(5);
+        }
+
+        //when
+        String follower = shortWait.execute("search", condition(), PageRequest.of(0, 10), () -> {
+            executions.incrementAndGet();
+            return "direct";
+        });
+        release.countDown();
+
+        //then
+        assertThat(follower).isEqualTo("direct");
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("leader");
+        assertThat(executions.get()).isEqualTo(2);
+        assertThat(count("follower")).isEqualTo(1);
+        assertThat(count("timeout")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("검색조건 / 페이지가 다르면 따로 실행한다")
+    void differentKeys() throws Exception {
+        MemberSearchCondition other = condition();
+        other.setAgeGoe(30);
+
+        String first = coalescer.execute("search", condition(), PageRequest.of(0, 10),
+            () -> coalescer.execute("search", other, PageRequest.of(0, 10), () -> "nested"));
+
+        assertThat(first).isEqualTo("nested");
+        assertThat(count("leader")).isEqualTo(2);
+    }
+
+    private List<Future<String>> submitAll(Supplier<String> loader) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> coalescer.execute("search", condition(), PageRequest.of(0, 10), loader)));
+        }
+        return results;
+    }
+
+    private void waitForFollowers(int followers) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (count("follower") < followers && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private double count(String role) {
+        return registry.counter("dslshop.search.coalescing", "query", "search", "role", role).count();
+    }
+
+    //공백 username 은 정규화하면 조건 없음과 같다.
+    private MemberSearchCondition condition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(" ");
+        return condition;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package gorany.dslshop.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaRoutingDataSourceTest {
+
+    static final String PRIMARY = "jdbc:h2:mem:primary";
+    static final String REPLICA_1 = "jdbc:h2:mem:replica1";
+    static final String REPLICA_2 = "jdbc:h2:mem:replica2";
+
+    AtomicLong now = new AtomicLong(10_000);
+
+    ReadYourWrites.Window previousWindow;
+
+    @BeforeEach
+    void before() {
+        previousWindow = ReadYourWrites.open();
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    void after() {
+        TransactionSynchronizationManager.getResourceMap().keySet()
+            .forEach(TransactionSynchronizationManager::unbindResource);
+        TransactionSynchronizationManager.clear();
+        ReadYourWrites.restore(previousWindow);
+    }
+
+    @Test
+    @DisplayName("readOnly 트랜잭션은 replica 를 돌아가며, 쓰기 트랜잭션은 primary 를 쓴다")
+    void roundRobin() throws Exception {
+        //given
+        ReplicaRoutingDataSource routing = routing(List.of(h2(REPLICA_1), h2(REPLICA_2)));
+
+        //when
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        String first = url(routing);
+        String second = url(routing);
+        String third = url(routing);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        String write = url(routing);
+
+        //then
+        assertThat(List.of(first, second, third)).containsExactly(REPLICA_1, REPLICA_2, REPLICA_1);
+        assertThat(write).isEqualTo(PRIMARY);
+    }
+
+    @Test
+    @DisplayName("쓰기를 커밋한 요청만 read-your-writes 시간 동안 primary 에서 읽는다")
+    void readYourWrites() throws Exception {
+        //given
+        ReplicaRoutingDataSource routing = routing(List.of(h2(REPLICA_1)));
+
+        //when: 쓰기가 flush 된 트랜잭션이 커밋된 뒤
+        routing.onWrite();
+        commit();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        String duringWindow = url(routing);
+
+        ReadYourWrites.Window writer = ReadYourWrites.open(); //다른 요청
+        String otherRequest = url(routing);
+        ReadYourWrites.restore(writer);
+
+        now.addAndGet(1_000);
+        String afterWindow = url(routing);
+
+        //then
+        assertThat(duringWindow).isEqualTo(PRIMARY);
+        assertThat(otherRequest).isEqualTo(REPLICA_1);
+        assertThat(afterWindow).isEqualTo(REPLICA_1);
+    }
+
+    @Test
+    @DisplayName("쓰지 않은 쓰기 트랜잭션이나 롤백된 쓰기는 이후 읽기를 primary 에 묶지 않는다")
+    void readWriteTransactionWithoutWrites() throws Exception {
+        //given
+        ReplicaRoutingDataSource routing = routing(List.of(h2(REPLICA_1)));
+
+        //when: readOnly 가 아닌 트랜잭션이 읽기만 하고 커밋
+        String readWrite = url(routing);
+        commit();
+        //쓰기가 flush 되었지만 롤백
+        routing.onWrite();
+        rollback();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        String read = url(routing);
+
+        //then
+        assertThat(readWrite).isEqualTo(PRIMARY);
+        assertThat(read).isEqualTo(REPLICA_1);
+    }
+
+    @Test
+    @DisplayName("replica 연결에 실패하면 primary 로 보내고 retry 시간 동안 빼둔다")
+    void fallback() throws Exception {
+        //given
+        DataSource broken = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/~/broken", "sa", "");
+        ReplicaRoutingDataSource routing = routing(List.of(broken, h2(REPLICA_1)));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //when
+        String failed = url(routing);
+        String next = url(routing);
+        String skipped = url(routing);
+
+        //then
+        assertThat(failed).isEqualTo(PRIMARY);
+        assertThat(next).isEqualTo(REPLICA_1);
+        assertThat(skipped).isEqualTo(REPLICA_1);
+    }
+
+    private ReplicaRoutingDataSource routing(List<DataSource> replicas) {
+        return new ReplicaRoutingDataSource(h2(PRIMARY), replicas, ReplicaRoutingDataSource.Selection.ROUND_ROBIN,
+            1_000, 5_000, now::get);
+    }
+
+    //지금 트랜잭션을 끝내고(afterCompletion) 같은 스레드에서 새 트랜잭션을 시작한다.
+    private static void commit() {
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private static void rollback() {
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private static DataSource h2(String url) {
+        return new DriverManagerDataSource(url, "sa", "");
+    }
+
+    private static String url(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+}
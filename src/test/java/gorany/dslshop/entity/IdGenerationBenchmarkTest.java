@@ -0,0 +1,157 @@
+package gorany.dslshop.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.benchmark.identity.IdentityMember;
+import gorany.benchmark.identity.IdentityReply;
+import gorany.dslshop.Benchmarks;
+import gorany.dslshop.RepositoryTestConfig;
+import java.util.Map;
+import java.util.function.IntFunction;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * ./gradlew benchmark
+ * IDENTITY(이전 매핑) vs pooled-lo 시퀀스 + JDBC batch insert 처리량 비교
+ * 이전 매핑은 같은 컬럼을 가진 IDENTITY 엔티티(IdentityMember, IdentityReply)로 재현한다.
+ * 이 엔티티들은 다른 테스트의 스키마에 섞이지 않도록 gorany.benchmark.identity 에 두고
+ * 벤치마크에서만 따로 만드는 persistence unit (같은 DataSource, 같은 batch 설정) 으로 insert 한다.
+ * 내장 H2 라 왕복 비용이 작다. 네트워크 너머의 DB 에서는 차이가 더 커진다.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "spring.jpa.properties.hibernate.jdbc.batch_size=500",
+    "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@Import(RepositoryTestConfig.class)
+@Transactional
+class IdGenerationBenchmarkTest {
+
+    static final int ROWS = Integer.getInteger("benchmark.insert.rows", 50_000);
+    static final int CHUNK = 1_000;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    DataSource dataSource;
+
+    LocalContainerEntityManagerFactoryBean identityUnit;
+
+    @BeforeEach
+    void before() {
+        identityUnit = new LocalContainerEntityManagerFactoryBean();
+        identityUnit.setPersistenceUnitName("identity-benchmark");
+        identityUnit.setDataSource(dataSource);
+        identityUnit.setPackagesToScan(IdentityMember.class.getPackageName());
+        identityUnit.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        identityUnit.setJpaPropertyMap(Map.of(
+            "hibernate.hbm2ddl.auto", "create-drop",
+            "hibernate.jdbc.batch_size", "500",
+            "hibernate.order_inserts", "true"
+        ));
+        identityUnit.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void after() {
+        identityUnit.destroy();
+    }
+
+    @Test
+    @DisplayName("member 대량 insert: IDENTITY vs pooled-lo")
+    void members() throws Exception {
+        Team team = new Team("teamA");
+        em.persist(team);
+        em.flush();
+        Long teamId = team.getId();
+
+        double identity = insertIdentity(i -> new IdentityMember("member" + i, i % 100, teamId));
+        double pooled = insert(em, i -> Member.builder()
+            .username("member" + i)
+            .age(i % 100)
+            .team(em.getReference(Team.class, teamId))
+            .build());
+
+        assertThat(count(identityUnit.getObject(), "IdentityMember")).isEqualTo(ROWS);
+        assertThat(count(em, "Member")).isEqualTo(ROWS);
+        print("member", identity, pooled);
+    }
+
+    @Test
+    @DisplayName("reply 대량 insert: IDENTITY vs pooled-lo")
+    void replies() throws Exception {
+        User user = User.builder().name("user").build();
+        em.persist(user);
+        Board board = Board.builder().title("board").content("content").user(user).build();
+        em.persist(board);
+        em.flush();
+        Long boardId = board.getId();
+
+        double identity = insertIdentity(i -> new IdentityReply("reply" + i, boardId));
+        double pooled = insert(em, i -> Reply.createReply("reply" + i, em.getReference(Board.class, boardId), null));
+
+        assertThat(count(identityUnit.getObject(), "IdentityReply")).isEqualTo(ROWS);
+        assertThat(count(em, "Reply")).isEqualTo(ROWS);
+        print("reply", identity, pooled);
+    }
+
+    //IDENTITY 엔티티는 따로 만든 persistence unit 의 트랜잭션 안에서 insert 한다.
+    private double insertIdentity(IntFunction<Object> factory) {
+        EntityManager identityEm = identityUnit.getObject().createEntityManager();
+        try {
+            identityEm.getTransaction().begin();
+            double rowsPerSec = insert(identityEm, factory);
+            identityEm.getTransaction().commit();
+            return rowsPerSec;
+        } finally {
+            identityEm.close();
+        }
+    }
+
+    //rows/sec
+    private double insert(EntityManager em, IntFunction<Object> factory) {
+        return Benchmarks.measure(0, 1, () -> {
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(factory.apply(i));
+                if ((i + 1) % CHUNK == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+        }).perSecond(ROWS);
+    }
+
+    private long count(EntityManagerFactory unit, String entityName) {
+        EntityManager em = unit.createEntityManager();
+        try {
+            return count(em, entityName);
+        } finally {
+            em.close();
+        }
+    }
+
+    private long count(EntityManager em, String entityName) {
+        return em.createQuery("select count(e) from " + entityName + " e", Long.class).getSingleResult();
+    }
+
+    private void print(String name, double identity, double pooled) {
+        Benchmarks.report("id generation", "%-6s rows=%d identity=%.0f rows/sec pooled-lo=%.0f rows/sec (x%.2f)",
+            name, ROWS, identity, pooled, pooled / identity);
+    }
+}
@@ -0,0 +1,109 @@
+package gorany.dslshop.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.repository.MemberRepository;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * 테스트용 application.yml 은 2차 캐시를 켜지 않으므로 여기서만 켠다.
+ * query cache 는 커밋된 데이터만 대상이므로 테스트 트랜잭션 없이 직접 커밋한다.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+    "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+    "spring.jpa.properties.hibernate.cache.region.factory_class=jcache",
+    "spring.jpa.properties.hibernate.javax.cache.provider=org.ehcache.jsr107.EhcacheCachingProvider",
+    "spring.jpa.properties.hibernate.javax.cache.uri=classpath:ehcache.xml",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(RepositoryTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    Long teamId;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            return teamA.getId();
+        });
+
+        emf.getCache().evictAll();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("Team 과 Team.members 는 두 번째 조회부터 2차 캐시에서 읽는다")
+    void teamRegion() throws Exception {
+        //when
+        for (int i = 0; i < 2; i++) {
+            tx.executeWithoutResult(status -> {
+                Team team = em.find(Team.class, teamId);
+                assertThat(team.getMembers()).hasSize(2);
+            });
+        }
+
+        //then
+        assertThat(statistics.getCacheRegionStatistics("team").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getCacheRegionStatistics("team.members").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getCacheRegionStatistics("member").getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("findByUsername 은 query cache 를 쓰고, member 에 쓰기가 있으면 다시 조회한다")
+    void queryCache() throws Exception {
+        //when
+        memberRepository.findByUsername("member1");
+        memberRepository.findByUsername("member1");
+        long hitsBeforeWrite = statistics.getQueryCacheHitCount();
+
+        tx.executeWithoutResult(status -> em.persist(new Member("member3", 30, em.find(Team.class, teamId))));
+        memberRepository.findByUsername("member1");
+
+        //then
+        assertThat(hitsBeforeWrite).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(2);
+    }
+}
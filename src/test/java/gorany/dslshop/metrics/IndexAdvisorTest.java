@@ -0,0 +1,46 @@
+package gorany.dslshop.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class IndexAdvisorTest {
+
+    static final String PLAN = "SELECT\n"
+        + "    MEMBER0_.MEMBER_ID AS COL_0_0_,\n"
+        + "    TEAM1_.NAME AS COL_4_0_\n"
+        + "FROM PUBLIC.MEMBER MEMBER0_\n"
+        + "    /* PUBLIC.MEMBER.tableScan */\n"
+        + "LEFT OUTER JOIN PUBLIC.TEAM TEAM1_\n"
+        + "    /* PUBLIC.PRIMARY_KEY_2: TEAM_ID = MEMBER0_.TEAM_ID */\n"
+        + "    ON MEMBER0_.TEAM_ID = TEAM1_.TEAM_ID\n"
+        + "WHERE (MEMBER0_.USERNAME = ?1)\n"
+        + "    AND ((MEMBER0_.AGE >= ?2)\n"
+        + "    AND ((MEMBER0_.AGE <= ?3)\n"
+        + "    AND (TEAM1_.NAME = ?4)))";
+
+    @Test
+    @DisplayName("tableScan 테이블을 찾고 등치 컬럼 + 범위 컬럼 순서로 인덱스를 추천한다")
+    void suggest() throws Exception {
+        //when
+        Map<String, String> scanned = IndexAdvisor.scannedTables(PLAN);
+
+        //then
+        assertThat(scanned).containsExactly(Map.entry("MEMBER0_", "MEMBER"));
+        assertThat(IndexAdvisor.suggest(PLAN, scanned))
+            .containsExactly("create index idx_member_username_age on member (username, age)");
+    }
+
+    @Test
+    @DisplayName("인덱스를 쓰는 쿼리는 추천하지 않는다")
+    void noSuggestion() throws Exception {
+        String plan = "SELECT MEMBER0_.MEMBER_ID FROM PUBLIC.MEMBER MEMBER0_\n"
+            + "    /* PUBLIC.IDX_MEMBER_USERNAME: USERNAME = ?1 */\n"
+            + "WHERE MEMBER0_.USERNAME = ?1";
+
+        assertThat(IndexAdvisor.scannedTables(plan)).isEmpty();
+        assertThat(IndexAdvisor.suggest(plan, IndexAdvisor.scannedTables(plan))).isEmpty();
+    }
+}
@@ -0,0 +1,21 @@
+package gorany.dslshop.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JdbcMetricsListenerTest {
+
+    @Test
+    @DisplayName("SQL 주석을 건너뛰고 content / count 쿼리를 구분한다")
+    void kindOf() throws Exception {
+        assertThat(JdbcMetricsListener.kindOf("/* select count(member1) from Member member1 */ select count(member0_.member_id) as col_0_0_ from member member0_"))
+            .isEqualTo("count");
+        assertThat(JdbcMetricsListener.kindOf("/* select ... */\n  select member0_.member_id as col_0_0_ from member member0_"))
+            .isEqualTo("select");
+        assertThat(JdbcMetricsListener.kindOf("insert into member (age, team_id, username, member_id) values (?, ?, ?, ?)"))
+            .isEqualTo("insert");
+        assertThat(JdbcMetricsListener.kindOf("call next value for member_seq")).isEqualTo("other");
+    }
+}
@@ -0,0 +1,19 @@
+package gorany.dslshop.metrics;
+
+/*
+ * 다른 패키지의 테스트에서 RepositoryMetricsAspect 없이 QueryContext 의 queryName 을 올려둘 때 사용한다.
+ */
+public final class QueryContextTestSupport {
+
+    private QueryContextTestSupport() {
+    }
+
+    public static void runAs(String queryName, Runnable task) {
+        String previous = QueryContext.enter(queryName);
+        try {
+            task.run();
+        } finally {
+            QueryContext.restore(previous);
+        }
+    }
+}
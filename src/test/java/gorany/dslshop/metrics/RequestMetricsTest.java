@@ -0,0 +1,116 @@
+package gorany.dslshop.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * 요청 하나가 repository 지연시간 히스토그램, JDBC statement 지표, 요청당 statement 수로 기록되고
+ * /actuator/prometheus 로 나가는지 확인한다.
+ */
+@SpringBootTest(properties = {
+    "management.endpoints.web.exposure.include=prometheus",
+    "management.metrics.distribution.percentiles-histogram.dslshop.repository.query=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class RequestMetricsTest {
+
+    static final String QUERY = "MemberJpaRepository.search";
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MeterRegistry registry;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("/v1/members 요청의 repository 지연시간 / statement / 요청당 statement 수가 기록된다")
+    void recordsRequest() throws Exception {
+        //given
+        long queriesBefore = repositoryQueries();
+        long statementsBefore = jdbcStatements();
+        long requestsBefore = requests();
+
+        //when
+        mockMvc.perform(get("/v1/members").param("teamName", "teamA"))
+            .andExpect(status().isOk());
+
+        //then: search 한 번 = select 한 번
+        assertThat(repositoryQueries() - queriesBefore).isEqualTo(1);
+        assertThat(jdbcStatements() - statementsBefore).isEqualTo(1);
+
+        DistributionSummary perRequest = registry.get("dslshop.http.statements").tag("uri", "/v1/members").summary();
+        assertThat(perRequest.count() - requestsBefore).isEqualTo(1);
+        assertThat(perRequest.max()).isEqualTo(1);
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertThat(scrape)
+            .contains("dslshop_repository_query_seconds_bucket{")
+            .contains("query=\"" + QUERY + "\"")
+            .contains("dslshop_jdbc_statement_seconds_count{")
+            .contains("dslshop_http_statements_count{uri=\"/v1/members\",}");
+    }
+
+    private long repositoryQueries() {
+        Timer timer = registry.find("dslshop.repository.query").tag("query", QUERY).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private long jdbcStatements() {
+        Timer timer = registry.find("dslshop.jdbc.statement").tag("query", QUERY).tag("kind", "select").timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private long requests() {
+        DistributionSummary summary = registry.find("dslshop.http.statements").tag("uri", "/v1/members").summary();
+        return summary != null ? summary.count() : 0;
+    }
+}
@@ -0,0 +1,76 @@
+package gorany.dslshop.metrics;
+
+import static gorany.dslshop.entity.QMember.member;
+import static gorany.dslshop.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@Import(RepositoryTestConfig.class)
+@Transactional
+class StatementGuardTest {
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory factory;
+
+    @BeforeEach
+    void before() {
+        factory = new JPAQueryFactory(em);
+        for (int i = 0; i < 3; i++) {
+            Team t = new Team("team" + i);
+            em.persist(t);
+            em.persist(new Member("member" + i, i, t));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("LAZY team 을 하나씩 읽으면 같은 select 가 반복되어 N+1 로 잡힌다")
+    void detectNPlusOne() throws Exception {
+        try (StatementScope scope = StatementScope.open("lazy team")) {
+            //when
+            List<Member> members = factory.selectFrom(member).fetch();
+            members.forEach(m -> m.getTeam().getName());
+
+            //then
+            assertThat(scope.getCount()).isEqualTo(4);
+            assertThat(scope.getSuspectedNPlusOne()).hasSize(1).containsValue(3);
+            assertThatThrownBy(scope::assertNoNPlusOne).isInstanceOf(AssertionError.class);
+        }
+    }
+
+    @Test
+    @DisplayName("fetch join 은 한 번에 읽고, toString 은 LAZY team 을 건드리지 않는다")
+    void fetchJoin() throws Exception {
+        try (StatementScope scope = StatementScope.open("fetch join")) {
+            //when
+            List<Member> members = factory.selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .fetch();
+            members.forEach(m -> m.getTeam().getName());
+            em.clear();
+            factory.selectFrom(member).fetch().forEach(Member::toString);
+
+            //then
+            scope.assertStatementCount(2);
+            scope.assertNoNPlusOne();
+        }
+    }
+}
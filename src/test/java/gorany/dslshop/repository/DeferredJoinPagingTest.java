@@ -0,0 +1,88 @@
+package gorany.dslshop.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.dto.MemberTeamDTO;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.metrics.StatementScope;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = "dslshop.search.deferred-join.offset-threshold=4")
+@Import(RepositoryTestConfig.class)
+@Transactional
+class DeferredJoinPagingTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("offset 이 기준 이상이면 id 페이징 + projection 두 번으로 읽고, 결과는 얕은 페이지와 이어진다")
+    void deepPage() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        Page<MemberTeamDTO> shallow = memberRepository.searchPageSimple(condition, PageRequest.of(0, 2));
+        Page<MemberTeamDTO> deep;
+        try (StatementScope scope = StatementScope.open("deep page")) {
+            deep = memberRepository.searchPageSimple(condition, PageRequest.of(2, 2));
+            //id 페이징 + projection (마지막 페이지라 count 는 생략된다)
+            scope.assertStatementCount(2);
+        }
+
+        //then
+        assertThat(shallow.getContent()).extracting("username").containsExactly("member0", "member2");
+        assertThat(deep.getContent()).extracting("username").containsExactly("member8");
+        assertThat(deep.getContent()).extracting("teamName").containsOnly("teamA");
+        assertThat(deep.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("모든 페이지를 이어 붙이면 전체 검색 결과와 같다")
+    void allPages() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        List<MemberTeamDTO> all = memberRepository.search(condition);
+
+        //when
+        List<MemberTeamDTO> pages = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            pages.addAll(memberRepository.searchPageSimple(condition, PageRequest.of(page, 3)).getContent());
+        }
+
+        //then
+        assertThat(pages).extracting("memberId").doesNotHaveDuplicates();
+        assertThat(pages).containsExactlyInAnyOrderElementsOf(all);
+    }
+}
@@ -0,0 +1,94 @@
+package gorany.dslshop.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.Benchmarks;
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.entity.Member;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * ./gradlew benchmark
+ * id 여러 건 조회: findById 반복 vs findAllByIds (IN chunk + padding)
+ * 매 반복마다 영속성 컨텍스트를 비워서 둘 다 DB 에서 읽게 한다.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "logging.level.org.hibernate.SQL=info")
+@Import({RepositoryTestConfig.class, MemberJpaRepository.class})
+@Transactional
+class FindAllByIdsBenchmarkTest {
+
+    static final int MEMBERS = 100_000;
+    static final int WARMUP = 5;
+    static final int ITERATIONS = 20;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    List<Long> allIds;
+
+    @BeforeEach
+    void before() {
+        em.createNativeQuery("insert into member (member_id, username, age) "
+                + "select next value for member_seq, concat('member', x), mod(x, 100) "
+                + "from system_range(1, ?1)")
+            .setParameter(1, MEMBERS)
+            .executeUpdate();
+        em.clear();
+        allIds = em.createQuery("select m.id from Member m", Long.class).getResultList();
+    }
+
+    @Test
+    @DisplayName("id 10 / 100 / 500 건 조회")
+    void compare() throws Exception {
+        for (int size : new int[]{10, 100, 500}) {
+            List<Long> ids = sample(size);
+
+            Function<List<Long>, List<Member>> loop = request -> {
+                List<Member> result = new ArrayList<>();
+                request.forEach(id -> memberJpaRepository.findById(id).ifPresent(result::add));
+                return result;
+            };
+            Function<List<Long>, List<Member>> batch = memberJpaRepository::findAllByIds;
+
+            assertThat(batch.apply(ids)).containsExactlyElementsOf(loop.apply(ids));
+
+            double loopMillis = measure(loop, ids);
+            double batchMillis = measure(batch, ids);
+            Benchmarks.report("findAllByIds", "ids=%-4d loop=%.2fms findAllByIds=%.2fms (x%.2f)",
+                size, loopMillis, batchMillis, loopMillis / batchMillis);
+        }
+    }
+
+    private List<Long> sample(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        Set<Long> ids = new LinkedHashSet<>(size);
+        while (ids.size() < size) {
+            ids.add(allIds.get(random.nextInt(allIds.size())));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private double measure(Function<List<Long>, List<Member>> lookup, List<Long> ids) {
+        return Benchmarks.measure(WARMUP, ITERATIONS, () -> {
+            lookup.apply(ids);
+            em.clear();
+        }).millisPerOp();
+    }
+}
@@ -0,0 +1,113 @@
+package gorany.dslshop.repository;
+
+import static gorany.dslshop.entity.QMember.member;
+import static gorany.dslshop.entity.QTeam.team;
+import static gorany.dslshop.repository.MemberSearchPredicates.ageGoe;
+import static gorany.dslshop.repository.MemberSearchPredicates.ageLoe;
+import static gorany.dslshop.repository.MemberSearchPredicates.teamNameEq;
+import static gorany.dslshop.repository.MemberSearchPredicates.usernameEq;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.Benchmarks;
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.entity.Team;
+import java.util.function.LongSupplier;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * ./gradlew benchmark
+ * 기존 count 쿼리(content 쿼리 복사 + left join + offset/limit)와 MemberCountQuery 비교
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "logging.level.org.hibernate.SQL=info")
+@Import(RepositoryTestConfig.class)
+@Transactional
+class MemberCountQueryBenchmarkTest {
+
+    static final int MEMBERS = 300_000;
+    static final int WARMUP = 5;
+    static final int ITERATIONS = 20;
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory factory;
+
+    @BeforeEach
+    void before() {
+        factory = new JPAQueryFactory(em);
+
+        Team teamA = Team.builder().name("teamA").build();
+        Team teamB = Team.builder().name("teamB").build();
+        em.persist(teamA);
+        em.persist(teamB);
+        em.flush();
+
+        em.createNativeQuery("insert into member (member_id, username, age, team_id) "
+                + "select next value for member_seq, concat('member', x), mod(x, 100), "
+                + "case when mod(x, 2) = 0 then ?1 else ?2 end "
+                + "from system_range(1, ?3)")
+            .setParameter(1, teamA.getId())
+            .setParameter(2, teamB.getId())
+            .setParameter(3, MEMBERS)
+            .executeUpdate();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("count 쿼리: 조건 없음")
+    void noCondition() throws Exception {
+        compare("no condition", new MemberSearchCondition());
+    }
+
+    @Test
+    @DisplayName("count 쿼리: age 범위")
+    void ageRange() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+        compare("age range", condition);
+    }
+
+    @Test
+    @DisplayName("count 쿼리: teamName (join 필요)")
+    void teamName() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        compare("teamName", condition);
+    }
+
+    private void compare(String name, MemberSearchCondition condition) {
+        LongSupplier legacy = () -> factory
+            .select(member)
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            )
+            .offset(100)
+            .limit(20)
+            .fetchCount();
+        LongSupplier optimized = () -> MemberCountQuery.count(factory, condition);
+
+        assertThat(optimized.getAsLong()).isEqualTo(legacy.getAsLong());
+
+        double legacyMillis = Benchmarks.measure(WARMUP, ITERATIONS, legacy::getAsLong).millisPerOp();
+        double optimizedMillis = Benchmarks.measure(WARMUP, ITERATIONS, optimized::getAsLong).millisPerOp();
+        Benchmarks.report("count", "%-12s rows=%d legacy=%.2fms optimized=%.2fms (x%.2f)",
+            name, MEMBERS, legacyMillis, optimizedMillis, legacyMillis / optimizedMillis);
+    }
+}
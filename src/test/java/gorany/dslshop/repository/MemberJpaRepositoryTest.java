@@ -2,12 +2,21 @@ package gorany.dslshop.repository;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static gorany.dslshop.entity.QMember.member;
+import static gorany.dslshop.entity.QTeam.team;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.dto.CursorResult;
+import gorany.dslshop.dto.MemberCursor;
 import gorany.dslshop.dto.MemberSearchCondition;
 import gorany.dslshop.dto.MemberTeamDTO;
+import gorany.dslshop.dto.QMemberTeamDTO;
 import gorany.dslshop.entity.Member;
 import gorany.dslshop.entity.Team;
+import gorany.dslshop.metrics.StatementScope;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import javax.persistence.EntityManager;
@@ -19,13 +28,16 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
 //@SpringBootTest
 @DataJpaTest
+@Import({RepositoryTestConfig.class, MemberJpaRepository.class})
 @Transactional
 class MemberJpaRepositoryTest {
 
@@ -33,6 +45,8 @@ class MemberJpaRepositoryTest {
     EntityManager em;
     @Autowired
     MemberRepository memberJpaRepository;
+    @Autowired
+    MemberJpaRepository jpaRepository;
 
     @BeforeEach
     void before() {
@@ -125,4 +139,173 @@ class MemberJpaRepositoryTest {
         assertThat(results.getSize()).isEqualTo(3);
         assertThat(results.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("커서 페이징 (member_id)")
+    void cursorSearchById() throws Exception {
+        //given
+        MemberSearchCondition con = new MemberSearchCondition();
+
+        //when
+        CursorResult<MemberTeamDTO> first = memberJpaRepository.searchByCursor(con, MemberCursor.first(MemberCursor.Sort.ID), 3);
+        CursorResult<MemberTeamDTO> second = memberJpaRepository.searchByCursor(con, MemberCursor.decode(first.getNextCursor()), 3);
+
+        //then
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("커서 페이징 (age 정렬 + 검색조건)")
+    void cursorSearchByAge() throws Exception {
+        //given
+        MemberSearchCondition con = new MemberSearchCondition();
+        con.setAgeGoe(20);
+
+        //when
+        CursorResult<MemberTeamDTO> first = memberJpaRepository.searchByCursor(con, MemberCursor.first(MemberCursor.Sort.AGE), 2);
+        CursorResult<MemberTeamDTO> second = memberJpaRepository.searchByCursor(con, MemberCursor.decode(first.getNextCursor()), 2);
+
+        //then
+        assertThat(first.getContent()).extracting("age").containsExactly(20, 30);
+        assertThat(second.getContent()).extracting("age").containsExactly(40);
+        assertThat(second.isHasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("커서로 한 건씩 읽기")
+    void iterateTest() throws Exception {
+        //given
+        MemberSearchCondition con = new MemberSearchCondition();
+        con.setTeamName("teamA");
+
+        //when
+        List<MemberTeamDTO> result = new ArrayList<>();
+        try (CloseableIterator<MemberTeamDTO> iterator = jpaRepository.iterate(con, 1)) {
+            iterator.forEachRemaining(result::add);
+        }
+
+        //then
+        assertThat(result).extracting("username").containsExactly("member1", "member2");
+    }
+
+    @Test
+    @DisplayName("shape 별로 직렬화해둔 검색은 요청마다 만든 Querydsl 쿼리와 결과가 같다")
+    void searchShapesTest() throws Exception {
+        JPAQueryFactory factory = new JPAQueryFactory(em);
+        for (int shape = 0; shape < MemberSearchShapes.CONDITION_SHAPES; shape++) {
+            //given
+            MemberSearchCondition con = new MemberSearchCondition();
+            if ((shape & MemberSearchShapes.USERNAME) != 0) {
+                con.setUsername("member4");
+            }
+            if ((shape & MemberSearchShapes.TEAM_NAME) != 0) {
+                con.setTeamName("teamB");
+            }
+            if ((shape & MemberSearchShapes.AGE_GOE) != 0) {
+                con.setAgeGoe(35);
+            }
+            if ((shape & MemberSearchShapes.AGE_LOE) != 0) {
+                con.setAgeLoe(40);
+            }
+            if ((shape & MemberSearchShapes.USERNAME_CONTAINS) != 0) {
+                con.setUsernameContains("ber");
+            }
+            if ((shape & MemberSearchShapes.USERNAME_PREFIX) != 0) {
+                con.setUsernameStartsWith("member");
+            }
+
+            //when
+            List<MemberTeamDTO> expected = factory
+                .select(new QMemberTeamDTO(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                    MemberSearchPredicates.usernameEq(con.getUsername()),
+                    MemberSearchPredicates.teamNameEq(con.getTeamName()),
+                    MemberSearchPredicates.ageGoe(con.getAgeGoe()),
+                    MemberSearchPredicates.ageLoe(con.getAgeLoe()),
+                    MemberSearchPredicates.usernameContains(con.getUsernameContains()),
+                    MemberSearchPredicates.usernameStartsWith(con.getUsernameStartsWith())
+                )
+                .fetch();
+
+            //then
+            assertThat(MemberSearchShapes.shapeOf(con)).isEqualTo(shape);
+            assertThat(jpaRepository.search(con)).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(jpaRepository.searchByBuilder(con)).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(memberJpaRepository.search(con)).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(memberJpaRepository.searchByBuilder(con)).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("검색 LIKE 는 %, _ 를 문자 그대로 찾는다")
+    void searchShapesEscapeTest() throws Exception {
+        //given
+        em.persist(Member.builder().username("a_%b").age(50).build());
+        em.persist(Member.builder().username("axxb").age(50).build());
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition con = new MemberSearchCondition();
+        con.setUsernameContains("_%");
+
+        //when
+        List<MemberTeamDTO> result = jpaRepository.search(con);
+
+        //then
+        assertThat(result).extracting("username").containsExactly("a_%b");
+    }
+
+    @Test
+    @DisplayName("findAllByIds: 영속성 컨텍스트에 없는 id 만 한 번에 조회하고 입력 순서로 돌려준다")
+    void findAllByIdsTest() throws Exception {
+        //given
+        List<Long> ids = em.createQuery("select m.id from Member m order by m.username", Long.class).getResultList();
+        Member cached = em.find(Member.class, ids.get(0));
+        List<Long> request = List.of(ids.get(3), ids.get(0), -1L, ids.get(2), ids.get(3));
+
+        //when
+        List<Member> result;
+        try (StatementScope scope = StatementScope.open("findAllByIds")) {
+            result = jpaRepository.findAllByIds(request);
+            scope.assertStatementCount(1);
+        }
+
+        //then
+        assertThat(result).extracting("username").containsExactly("member4", "member1", "member3");
+        assertThat(result.get(1)).isSameAs(cached);
+        assertThat(MemberJpaRepository.padToPowerOfTwo(List.of(1L, 2L, 3L))).containsExactly(1L, 2L, 3L, 3L);
+        assertThat(MemberJpaRepository.padToPowerOfTwo(List.of(1L, 2L))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Slice 검색은 pageSize + 1 건만 읽고 count 쿼리를 실행하지 않는다")
+    void searchSliceTest() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest first = PageRequest.of(0, 3);
+
+        //when
+        try (StatementScope page = StatementScope.open("page")) {
+            memberJpaRepository.searchPageSimple(condition, first);
+            page.assertStatementCount(2);
+        }
+        Slice<MemberTeamDTO> firstSlice;
+        try (StatementScope slice = StatementScope.open("slice")) {
+            firstSlice = memberJpaRepository.searchSlice(condition, first);
+            slice.assertStatementCount(1);
+        }
+        Slice<MemberTeamDTO> lastSlice = memberJpaRepository.searchSlice(condition, PageRequest.of(1, 3));
+
+        //then
+        assertThat(firstSlice.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(firstSlice.hasNext()).isTrue();
+        assertThat(lastSlice.getContent()).extracting("username").containsExactly("member4");
+        assertThat(lastSlice.hasNext()).isFalse();
+    }
+}
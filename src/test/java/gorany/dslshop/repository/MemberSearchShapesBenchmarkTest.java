@@ -0,0 +1,125 @@
+package gorany.dslshop.repository;
+
+import static gorany.dslshop.entity.QMember.member;
+import static gorany.dslshop.entity.QTeam.team;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import gorany.dslshop.Benchmarks;
+import gorany.dslshop.Benchmarks.Measurement;
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.dto.MemberTeamDTO;
+import gorany.dslshop.dto.QMemberTeamDTO;
+import gorany.dslshop.entity.Team;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * ./gradlew benchmark
+ * 요청마다 Querydsl 로 쿼리를 만들 때와 shape 별로 직렬화해둔 쿼리를 쓰는 search() 의
+ * 요청당 지연시간 / 할당량 비교 (결과가 작은 조건 위주라 쿼리 생성 비용이 잘 드러난다)
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "logging.level.org.hibernate.SQL=info")
+@Import({RepositoryTestConfig.class, MemberJpaRepository.class})
+@Transactional
+class MemberSearchShapesBenchmarkTest {
+
+    static final int MEMBERS = 10_000;
+    static final int WARMUP = 2_000;
+    static final int ITERATIONS = 5_000;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = Team.builder().name("teamA").build();
+        Team teamB = Team.builder().name("teamB").build();
+        em.persist(teamA);
+        em.persist(teamB);
+        em.flush();
+
+        em.createNativeQuery("insert into member (member_id, username, age, team_id) "
+                + "select next value for member_seq, concat('member', x), mod(x, 100), "
+                + "case when mod(x, 2) = 0 then ?1 else ?2 end "
+                + "from system_range(1, ?3)")
+            .setParameter(1, teamA.getId())
+            .setParameter(2, teamB.getId())
+            .setParameter(3, MEMBERS)
+            .executeUpdate();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("Querydsl per request vs search (shape cache)")
+    void compare() throws Exception {
+        JPAQueryFactory factory = new JPAQueryFactory(em);
+        for (int shape = 1; shape < MemberSearchShapes.CONDITION_SHAPES; shape++) {
+            MemberSearchCondition condition = condition(shape);
+
+            Measurement querydsl = Benchmarks.measure(WARMUP, ITERATIONS, () -> perRequest(factory, condition));
+            Measurement cached = Benchmarks.measure(WARMUP, ITERATIONS, () -> memberJpaRepository.search(condition));
+
+            Benchmarks.report("shape", "shape=%2d querydsl=%.1fus/%dB cached=%.1fus/%dB saved=%.1fus/%dB per request",
+                shape, querydsl.microsPerOp(), querydsl.bytesPerOp(), cached.microsPerOp(), cached.bytesPerOp(),
+                querydsl.microsPerOp() - cached.microsPerOp(), querydsl.bytesPerOp() - cached.bytesPerOp());
+        }
+    }
+
+    //shape cache 전의 search(): 요청마다 Querydsl 표현식 트리를 만들고 직렬화한다.
+    private List<MemberTeamDTO> perRequest(JPAQueryFactory factory, MemberSearchCondition condition) {
+        return factory
+            .select(new QMemberTeamDTO(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+            ))
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(
+                MemberSearchPredicates.usernameEq(condition.getUsername()),
+                MemberSearchPredicates.teamNameEq(condition.getTeamName()),
+                MemberSearchPredicates.ageGoe(condition.getAgeGoe()),
+                MemberSearchPredicates.ageLoe(condition.getAgeLoe()),
+                MemberSearchPredicates.usernameContains(MemberSearchPredicates.MEMBER, condition.getUsernameContains()),
+                MemberSearchPredicates.usernameStartsWith(MemberSearchPredicates.MEMBER, condition.getUsernameStartsWith())
+            )
+            .fetch();
+    }
+
+    private MemberSearchCondition condition(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & MemberSearchShapes.USERNAME) != 0) {
+            condition.setUsername("member42");
+        }
+        if ((shape & MemberSearchShapes.TEAM_NAME) != 0) {
+            condition.setTeamName("teamA");
+        }
+        if ((shape & MemberSearchShapes.AGE_GOE) != 0) {
+            condition.setAgeGoe(42);
+        }
+        if ((shape & MemberSearchShapes.AGE_LOE) != 0) {
+            condition.setAgeLoe(42);
+        }
+        if ((shape & MemberSearchShapes.USERNAME_CONTAINS) != 0) {
+            condition.setUsernameContains("ber42");
+        }
+        if ((shape & MemberSearchShapes.USERNAME_PREFIX) != 0) {
+            condition.setUsernameStartsWith("member42");
+        }
+        return condition;
+    }
+}
@@ -0,0 +1,147 @@
+package gorany.dslshop.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.metrics.QueryContext;
+import gorany.dslshop.metrics.QueryContextTestSupport;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+class ParallelCountExecutorTest {
+
+    ParallelCountExecutor executor;
+
+    @AfterEach
+    void after() {
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("count 는 다른 스레드에서 content 와 동시에 실행된다")
+    void parallel() throws Exception {
+        //given
+        executor = new ParallelCountExecutor(new NoOpTransactionManager(), true, 2, 4, 3000);
+        CountDownLatch countStarted = new CountDownLatch(1);
+        AtomicReference<String> countThread = new AtomicReference<>();
+
+        //when
+        Page<Integer> page = executor.page(() -> {
+            //count 가 시작되어야 content 가 끝나므로 순서대로 실행되면 timeout 으로 실패한다.
+            await(countStarted);
+            return List.of(1, 2);
+        }, PageRequest.of(0, 2), () -> {
+            countThread.set(Thread.currentThread().getName());
+            countStarted.countDown();
+            return 10;
+        });
+
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(page.getContent()).containsExactly(1, 2);
+        assertThat(countThread.get()).startsWith("member-count-");
+    }
+
+    @Test
+    @DisplayName("count 를 실행하는 스레드에도 호출한 스레드의 QueryContext 가 보이고, 끝나면 되돌린다")
+    void propagatesQueryContext() throws Exception {
+        //given
+        executor = new ParallelCountExecutor(new NoOpTransactionManager(), true, 1, 4, 3000);
+        AtomicReference<String> countQuery = new AtomicReference<>();
+
+        //when
+        QueryContextTestSupport.runAs("MemberRepositoryCustomImpl.searchPageSimple", () ->
+            executor.page(() -> List.of(1, 2), PageRequest.of(0, 2), () -> {
+                countQuery.set(QueryContext.currentQueryName());
+                return 10;
+            }));
+        AtomicReference<String> afterwards = new AtomicReference<>();
+        executor.page(() -> List.of(1, 2), PageRequest.of(0, 2), () -> {
+            afterwards.set(QueryContext.currentQueryName());
+            return 10;
+        });
+
+        //then
+        assertThat(countQuery.get()).isEqualTo("MemberRepositoryCustomImpl.searchPageSimple");
+        assertThat(afterwards.get()).isEqualTo(QueryContext.NONE);
+    }
+
+    @Test
+    @DisplayName("timeout 이 지나면 호출한 스레드에서 다시 count 한다")
+    void timeoutFallback() throws Exception {
+        //given
+        executor = new ParallelCountExecutor(new NoOpTransactionManager(), true, 1, 4, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger counts = new AtomicInteger();
+        String caller = Thread.currentThread().getName();
+
+        //when
+        Page<Integer> page = executor.page(() -> List.of(1, 2), PageRequest.of(0, 2), () -> {
+            counts.incrementAndGet();
+            if (!Thread.currentThread().getName().equals(caller)) {
+                await(release);
+            }
+            return 7;
+        });
+        release.countDown();
+
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(7);
+        assertThat(counts.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("꺼져 있으면 순서대로 실행하고, content 로 total 을 알 수 있으면 count 하지 않는다")
+    void serial() throws Exception {
+        //given
+        executor = new ParallelCountExecutor(new NoOpTransactionManager(), false, 1, 4, 3000);
+        AtomicInteger counts = new AtomicInteger();
+
+        //when
+        Page<Integer> full = executor.page(() -> List.of(1, 2), PageRequest.of(0, 2), () -> counts.incrementAndGet() * 100);
+        Page<Integer> last = executor.page(() -> List.of(1), PageRequest.of(3, 2), counts::incrementAndGet);
+
+        //then
+        assertThat(full.getTotalElements()).isEqualTo(100);
+        assertThat(last.getTotalElements()).isEqualTo(7);
+        assertThat(counts.get()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(2, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
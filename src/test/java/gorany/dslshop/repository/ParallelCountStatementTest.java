@@ -0,0 +1,85 @@
+package gorany.dslshop.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.dto.MemberTeamDTO;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.metrics.StatementScope;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * 쓰기 트랜잭션 안에서는 count 를 순서대로 실행하므로 테스트 트랜잭션 없이 실행해서 병렬 경로를 탄다.
+ */
+@DataJpaTest(properties = "dslshop.search.parallel-count.enabled=true")
+@Import(RepositoryTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ParallelCountStatementTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 1; i <= 10; i++) {
+                em.persist(new Member("member" + i, i * 10, teamA));
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("다른 스레드에서 실행한 count 도 호출한 스레드의 StatementScope 에 잡힌다")
+    void countOnPoolThreadIsRecorded() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        Page<MemberTeamDTO> page;
+        try (StatementScope scope = StatementScope.open("parallel page")) {
+            page = memberRepository.searchPageSimple(condition, PageRequest.of(0, 3));
+            //content + count
+            scope.assertStatementCount(2);
+        }
+        try (StatementScope scope = StatementScope.open("parallel page (complex)")) {
+            memberRepository.searchByBuilderComplex(condition, PageRequest.of(1, 3));
+            scope.assertStatementCount(2);
+        }
+
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(page.getContent()).hasSize(3);
+    }
+}
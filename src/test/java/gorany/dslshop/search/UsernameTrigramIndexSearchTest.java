@@ -0,0 +1,141 @@
+package gorany.dslshop.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.dto.MemberTeamDTO;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.repository.MemberJpaRepository;
+import gorany.dslshop.repository.MemberRepository;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * 색인 후보 id (member.id in (...)) 로 검색하는 경로를 실제 SQL 로 확인한다.
+ * 커밋된 변경만 색인에 반영되므로 테스트 트랜잭션 없이 직접 커밋한다.
+ */
+@DataJpaTest(properties = "dslshop.search.username-index.enabled=true")
+@Import({RepositoryTestConfig.class, MemberJpaRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UsernameTrigramIndexSearchTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    UsernameTrigramIndex index;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 1; i <= 12; i++) {
+                em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+        index.build();
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("select m.id from Member m", Long.class).getResultList().forEach(index::remove);
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("후보 id 로 검색한 결과가 LIKE 검색과 같다 (IN 절은 2의 거듭제곱 크기로 채운다)")
+    void candidates() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("ber1");
+        condition.setTeamName("teamA");
+
+        //when
+        List<MemberTeamDTO> byIndex = memberRepository.search(condition);
+
+        //then
+        //member1, member10, member11, member12 -> IN 절 4개
+        assertThat(index.candidates(condition)).hasSize(4);
+        assertThat(byIndex).extracting("username").containsExactlyInAnyOrder("member10", "member12");
+        assertThat(memberJpaRepository.search(condition)).containsExactlyInAnyOrderElementsOf(byIndex);
+        assertThat(memberJpaRepository.searchByBuilder(condition)).containsExactlyInAnyOrderElementsOf(byIndex);
+        assertThat(memberRepository.searchPageSimple(condition, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(2);
+
+        //member1 ~ member12 -> 후보 12개, IN 절 16개
+        MemberSearchCondition prefix = new MemberSearchCondition();
+        prefix.setUsernameStartsWith("mem");
+        assertThat(index.candidates(prefix)).hasSize(12);
+        assertThat(memberRepository.searchByBuilderComplex(prefix, PageRequest.of(0, 5)).getTotalElements()).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("username 변경은 커밋된 뒤에만 색인에 반영되고, 변경한 트랜잭션 안에서는 LIKE 로 검색한다")
+    void rename() throws Exception {
+        //given
+        Long memberId = findMember("member3").getId();
+
+        //when: 롤백
+        tx.executeWithoutResult(status -> {
+            findMember("member3").changeUsername("renamed3");
+            em.flush();
+
+            assertThat(index.candidates(contains("renamed"))).isNull();
+            assertThat(memberRepository.search(contains("renamed")))
+                .extracting("memberId").containsExactly(memberId);
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertThat(index.candidates(contains("member3"))).containsExactly(memberId);
+        assertThat(index.candidates(contains("renamed"))).isEmpty();
+        assertThat(memberRepository.search(contains("member3"))).extracting("memberId").containsExactly(memberId);
+
+        //when: 커밋
+        tx.executeWithoutResult(status -> findMember("member3").changeUsername("renamed3"));
+
+        //then
+        assertThat(index.candidates(contains("renamed"))).containsExactly(memberId);
+        assertThat(index.candidates(contains("member3"))).isEmpty();
+        assertThat(memberRepository.search(contains("renamed"))).extracting("memberId").containsExactly(memberId);
+    }
+
+    private MemberSearchCondition contains(String value) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains(value);
+        return condition;
+    }
+
+    private Member findMember(String username) {
+        return tx.execute(status -> em.createQuery("select m from Member m where m.username = :username", Member.class)
+            .setParameter("username", username)
+            .getSingleResult());
+    }
+}
@@ -0,0 +1,80 @@
+package gorany.dslshop.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.dto.MemberSearchCondition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class UsernameTrigramIndexTest {
+
+    UsernameTrigramIndex index;
+
+    @BeforeEach
+    void before() {
+        index = new UsernameTrigramIndex(100);
+        index.put(1L, "member1");
+        index.put(2L, "member12");
+        index.put(3L, "Member3");
+        index.put(4L, "teamMember");
+        index.put(5L, "rebmem");
+    }
+
+    @Test
+    @DisplayName("contains: gram 이 모두 있는 후보 중 실제로 포함하는 id 만 (대소문자 구분)")
+    void contains() throws Exception {
+        assertThat(index.candidates(contains("ember"))).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+        assertThat(index.candidates(contains("member"))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.candidates(contains("ber1"))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.candidates(contains("xyz"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("startsWith: 시작 위치 gram 으로 찾는다")
+    void startsWith() throws Exception {
+        assertThat(index.candidates(startsWith("m"))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.candidates(startsWith("Mem"))).containsExactlyInAnyOrder(3L);
+        assertThat(index.candidates(startsWith("team"))).containsExactlyInAnyOrder(4L);
+
+        MemberSearchCondition both = startsWith("member");
+        both.setUsernameContains("2");
+        assertThat(index.candidates(both)).containsExactlyInAnyOrder(2L);
+    }
+
+    @Test
+    @DisplayName("3글자 미만 contains, 후보가 너무 많으면 null (LIKE 로 검색)")
+    void fallback() throws Exception {
+        assertThat(index.candidates(contains("em"))).isNull();
+        assertThat(index.candidates(new MemberSearchCondition())).isNull();
+
+        UsernameTrigramIndex small = new UsernameTrigramIndex(1);
+        small.put(1L, "member1");
+        small.put(2L, "member2");
+        assertThat(small.candidates(contains("member"))).isNull();
+        assertThat(small.candidates(contains("member2"))).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("username 변경 / 삭제가 반영된다")
+    void update() throws Exception {
+        index.put(1L, "renamed");
+        index.remove(2L);
+
+        assertThat(index.candidates(contains("member"))).isEmpty();
+        assertThat(index.candidates(startsWith("ren"))).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    private MemberSearchCondition contains(String value) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains(value);
+        return condition;
+    }
+
+    private MemberSearchCondition startsWith(String value) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameStartsWith(value);
+        return condition;
+    }
+}
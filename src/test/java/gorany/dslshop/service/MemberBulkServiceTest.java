@@ -0,0 +1,121 @@
+package gorany.dslshop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.entity.City;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * chunk 마다 커밋하므로 테스트 트랜잭션 없이 실행한다.
+ */
+@DataJpaTest
+@Import({RepositoryTestConfig.class, MemberBulkService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MemberBulkServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberBulkService bulkService;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamBId;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 1; i <= 5; i++) {
+                Member member = new Member("member" + i, i * 10, teamA);
+                em.persist(member);
+                em.persist(City.builder().name("city" + i).member(member).build());
+            }
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from City").executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("나이 변경: chunk 단위로 커밋하고 진행 상황을 알린다")
+    void adjustAge() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        List<Long> progress = new ArrayList<>();
+
+        //when
+        BulkReport report = bulkService.adjustAge(condition, 1, 2, r -> progress.add(r.getRows()));
+
+        //then
+        assertThat(report.getRows()).isEqualTo(4);
+        assertThat(report.getChunks()).isEqualTo(2);
+        assertThat(progress).containsExactly(2L, 4L);
+        assertThat(ages()).containsExactly(10, 21, 31, 41, 51);
+    }
+
+    @Test
+    @DisplayName("팀 변경 / 삭제 (city 를 먼저 지운다)")
+    void reassignAndDelete() throws Exception {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(20);
+
+        //when
+        BulkReport reassigned = bulkService.reassignTeam(condition, teamBId, 1, r -> { });
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("teamB");
+        BulkReport deleted = bulkService.delete(teamB, 10, r -> { });
+
+        //then
+        assertThat(reassigned.getRows()).isEqualTo(2);
+        assertThat(deleted.getRows()).isEqualTo(2);
+        assertThat(ages()).containsExactly(30, 40, 50);
+        assertThat(tx.execute(status -> em.createQuery("select count(c) from City c", Long.class).getSingleResult()))
+            .isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("트랜잭션 안에서는 호출할 수 없다")
+    void insideTransaction() throws Exception {
+        assertThatThrownBy(() -> tx.executeWithoutResult(
+            status -> bulkService.adjustAge(new MemberSearchCondition(), 1)))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    private List<Integer> ages() {
+        return tx.execute(status -> em.createQuery("select m.age from Member m order by m.age", Integer.class)
+            .getResultList());
+    }
+}
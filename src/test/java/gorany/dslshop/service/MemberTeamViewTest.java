@@ -0,0 +1,128 @@
+package gorany.dslshop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.dto.MemberSearchCondition;
+import gorany.dslshop.dto.MemberTeamDTO;
+import gorany.dslshop.dto.MemberTeamViewCheckDTO;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.repository.MemberRepository;
+import gorany.dslshop.repository.MemberTeamViewRepository;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = "dslshop.member-team-view.enabled=true")
+@Import({RepositoryTestConfig.class, MemberTeamViewProjector.class, MemberTeamViewRebuildJob.class,
+    MemberTeamViewRepository.class})
+@Transactional
+class MemberTeamViewTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberTeamViewRepository memberTeamViewRepository;
+    @Autowired
+    MemberTeamViewRebuildJob rebuildJob;
+
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50, null));
+        em.flush();
+        em.clear();
+        teamAId = teamA.getId();
+        teamBId = teamB.getId();
+    }
+
+    @Test
+    @DisplayName("회원 생성 / 팀 변경 / 나이 변경 / 팀 이름 변경 / 삭제가 flush 되면 view 검색 결과가 join 검색과 같다")
+    void sync() throws Exception {
+        //when
+        Team teamA = em.find(Team.class, teamAId);
+        Team teamB = em.find(Team.class, teamBId);
+        em.persist(new Member("member6", 60, teamB));
+        findMember("member1").changeTeam(teamB);
+        findMember("member2").changeAge(25);
+        findMember("member5").changeTeam(teamA);
+        teamB.changeName("teamC");
+        em.remove(findMember("member3"));
+        em.flush();
+        em.clear();
+
+        //then
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThat(memberTeamViewRepository.search(condition))
+            .containsExactlyInAnyOrderElementsOf(memberRepository.search(condition))
+            .hasSize(5);
+
+        condition.setTeamName("teamC");
+        condition.setAgeGoe(10);
+        List<MemberTeamDTO> result = memberTeamViewRepository.search(condition);
+        assertThat(result).extracting("username").containsExactly("member1", "member4", "member6");
+        assertThat(result).containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+
+        Page<MemberTeamDTO> page = memberTeamViewRepository.searchPage(condition, PageRequest.of(0, 2));
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting("username").containsExactly("member1", "member4");
+
+        assertThat(rebuildJob.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    @DisplayName("이벤트 없이 바뀐 행(JPQL bulk 연산)은 check 가 찾아내고 rebuild 로 맞춘다")
+    void checkAndRebuild() throws Exception {
+        //given
+        em.createQuery("update Member m set m.age = m.age + 1 where m.age >= 30").executeUpdate();
+        em.createQuery("update Team t set t.name = 'teamZ' where t.id = :id")
+            .setParameter("id", teamAId)
+            .executeUpdate();
+
+        //when
+        MemberTeamViewCheckDTO before = rebuildJob.check();
+        long rows = rebuildJob.rebuild(2);
+        MemberTeamViewCheckDTO after = rebuildJob.check();
+
+        //then
+        //member1, member2 (팀 이름), member3, member4, member5 (나이)
+        assertThat(before.getStale()).isEqualTo(5);
+        assertThat(before.isConsistent()).isFalse();
+        assertThat(before.getSampleMemberIds()).hasSize(5);
+
+        assertThat(rows).isEqualTo(5);
+        assertThat(after.isConsistent()).isTrue();
+        assertThat(after.getViewRows()).isEqualTo(after.getMembers());
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThat(memberTeamViewRepository.search(condition))
+            .containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+    }
+
+    private Member findMember(String username) {
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+            .setParameter("username", username)
+            .getSingleResult();
+    }
+}
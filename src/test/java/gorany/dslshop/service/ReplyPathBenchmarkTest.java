@@ -0,0 +1,127 @@
+package gorany.dslshop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.Benchmarks;
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.entity.Board;
+import gorany.dslshop.entity.Reply;
+import gorany.dslshop.entity.User;
+import gorany.dslshop.repository.ReplyQueryRepository;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.IntSupplier;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * ./gradlew benchmark
+ * LAZY children 을 따라가는 방식 vs materialized path range scan
+ * deep 스레드는 기본으로 Reply.MAX_DEPTH 단계까지 만든다. (path 길이가 depth 에 비례하므로 -Dbenchmark.reply.deep 으로 줄일 수 있다)
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "logging.level.org.hibernate.SQL=info")
+@Import({RepositoryTestConfig.class, ReplyQueryRepository.class, ReplyThreadService.class})
+@Transactional
+class ReplyPathBenchmarkTest {
+
+    static final int DEEP = Integer.getInteger("benchmark.reply.deep", Reply.MAX_DEPTH);
+    static final int WIDE = Integer.getInteger("benchmark.reply.wide", 10_000);
+    static final int ITERATIONS = 3;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    ReplyThreadService replyThreadService;
+
+    @Test
+    @DisplayName("deep 스레드 (댓글의 댓글의 댓글...)")
+    void deepThread() throws Exception {
+        Board board = board();
+        User user = board.getUser();
+        Reply parent = Reply.createReply("root", board, user);
+        em.persist(parent);
+        Long rootId = parent.getId();
+        for (int i = 1; i < DEEP; i++) {
+            Reply child = Reply.createReReply("reply" + i, board, user, parent);
+            em.persist(child);
+            parent = child;
+            //긴 path 를 가진 엔티티가 영속성 컨텍스트에 쌓이지 않도록 (다음 자식은 detach 된 parent 의 id / path 만 쓴다)
+            if (i % 500 == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+
+        compare("deep", board.getId(), rootId, DEEP);
+    }
+
+    @Test
+    @DisplayName("wide 스레드 (댓글 하나에 대댓글 여러 개)")
+    void wideThread() throws Exception {
+        Board board = board();
+        User user = board.getUser();
+        Reply root = Reply.createReply("root", board, user);
+        em.persist(root);
+        for (int i = 1; i < WIDE; i++) {
+            em.persist(Reply.createReReply("reply" + i, board, user, root));
+            if (i % 1000 == 0) {
+                em.flush();
+            }
+        }
+        em.flush();
+        em.clear();
+
+        compare("wide", board.getId(), root.getId(), WIDE);
+    }
+
+    private Board board() {
+        User user = User.builder().name("user").build();
+        em.persist(user);
+        Board board = Board.builder().title("board").content("content").user(user).build();
+        em.persist(board);
+        return board;
+    }
+
+    private void compare(String name, Long boardId, Long rootId, int expected) {
+        double lazyMillis = measure(() -> {
+            int count = walkChildren(rootId);
+            em.clear();
+            return count;
+        }, expected);
+        double pathMillis = measure(() -> replyThreadService.loadSubtree(boardId, rootId,
+            ReplyThreadService.UNLIMITED, ReplyThreadService.UNLIMITED).getTotalReplies(), expected);
+        double topMillis = measure(() -> replyThreadService.loadTopThreads(boardId, 1,
+            ReplyThreadService.UNLIMITED, ReplyThreadService.UNLIMITED).getTotalReplies(), expected);
+
+        Benchmarks.report("reply path", "%-4s replies=%d lazy children=%.2fms subtree by path=%.2fms top thread by path=%.2fms",
+            name, expected, lazyMillis, pathMillis, topMillis);
+    }
+
+    //Reply.children 을 따라가며 노드마다 select 하는 기존 방식
+    private int walkChildren(Long rootId) {
+        Deque<Reply> stack = new ArrayDeque<>();
+        stack.push(em.find(Reply.class, rootId));
+        int count = 0;
+        while (!stack.isEmpty()) {
+            Reply current = stack.pop();
+            count++;
+            current.getChildren().forEach(stack::push);
+        }
+        return count;
+    }
+
+    //첫 실행으로 결과를 확인하고 (warmup 대신) ITERATIONS 번 잰다.
+    private double measure(IntSupplier run, int expected) {
+        assertThat(run.getAsInt()).isEqualTo(expected);
+        return Benchmarks.measure(0, ITERATIONS, run::getAsInt).millisPerOp();
+    }
+}
@@ -0,0 +1,212 @@
+package gorany.dslshop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.dto.ReplyNode;
+import gorany.dslshop.dto.ReplyThreadDTO;
+import gorany.dslshop.entity.Board;
+import gorany.dslshop.entity.Reply;
+import gorany.dslshop.entity.User;
+import gorany.dslshop.repository.ReplyQueryRepository;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@Import({RepositoryTestConfig.class, ReplyQueryRepository.class, ReplyThreadService.class})
+@Transactional
+class ReplyThreadServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    ReplyThreadService replyThreadService;
+
+    Board board;
+    Reply reply1;
+
+    /*
+     * reply1
+     *  ㄴ reply2
+     *      ㄴ reply3
+     *  ㄴ reply4
+     *  ㄴ reply5
+     * reply6
+     */
+    @BeforeEach
+    void before() {
+        User user = User.builder().name("user1").build();
+        em.persist(user);
+        board = Board.builder().title("board1").content("board_content1").user(user).build();
+        em.persist(board);
+
+        reply1 = Reply.createReply("reply1", board, user);
+        em.persist(reply1);
+        Reply reply2 = Reply.createReReply("reply2", board, user, reply1);
+        em.persist(reply2);
+        em.persist(Reply.createReReply("reply3", board, user, reply2));
+        em.persist(Reply.createReReply("reply4", board, user, reply1));
+        em.persist(Reply.createReReply("reply5", board, user, reply1));
+        em.persist(Reply.createReply("reply6", board, user));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("댓글 트리 조회")
+    void loadThread() throws Exception {
+        //when
+        ReplyThreadDTO thread = replyThreadService.loadThread(board.getId());
+
+        //then
+        assertThat(thread.getTotalReplies()).isEqualTo(6);
+        assertThat(thread.getReplies()).extracting("content").containsExactly("reply1", "reply6");
+
+        ReplyNode reply1 = thread.getReplies().get(0);
+        assertThat(reply1.getChildren()).extracting("content").containsExactly("reply2", "reply4", "reply5");
+        assertThat(reply1.getChildren().get(0).getChildren()).extracting("content").containsExactly("reply3");
+        assertThat(reply1.getChildren().get(0).getChildren().get(0).getDepth()).isEqualTo(2);
+        assertThat(reply1.getUserName()).isEqualTo("user1");
+    }
+
+    @Test
+    @DisplayName("maxDepth / maxChildren 제한")
+    void loadThreadWithLimits() throws Exception {
+        //when
+        ReplyThreadDTO thread = replyThreadService.loadThread(board.getId(), 1, 2);
+
+        //then
+        ReplyNode reply1 = thread.getReplies().get(0);
+        assertThat(reply1.getChildren()).extracting("content").containsExactly("reply2", "reply4");
+        assertThat(reply1.getOmittedChildren()).isEqualTo(1);
+
+        ReplyNode reply2 = reply1.getChildren().get(0);
+        assertThat(reply2.getChildren()).isEmpty();
+        assertThat(reply2.getOmittedChildren()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("materialized path 로 서브트리 조회")
+    void loadSubtree() throws Exception {
+        //when
+        ReplyThreadDTO thread = replyThreadService.loadSubtree(board.getId(), reply1.getId(),
+            ReplyThreadService.UNLIMITED, ReplyThreadService.UNLIMITED);
+
+        //then
+        assertThat(thread.getTotalReplies()).isEqualTo(5);
+        assertThat(thread.getReplies()).extracting("content").containsExactly("reply1");
+        assertThat(thread.getReplies().get(0).getChildren()).extracting("content")
+            .containsExactly("reply2", "reply4", "reply5");
+    }
+
+    @Test
+    @DisplayName("다른 게시글의 댓글로는 서브트리를 조회할 수 없다")
+    void loadSubtreeOfOtherBoard() throws Exception {
+        //given
+        User user = User.builder().name("user2").build();
+        em.persist(user);
+        Board otherBoard = Board.builder().title("board2").content("board_content2").user(user).build();
+        em.persist(otherBoard);
+
+        //when
+        ReplyThreadDTO thread = replyThreadService.loadSubtree(otherBoard.getId(), reply1.getId(),
+            ReplyThreadService.UNLIMITED, ReplyThreadService.UNLIMITED);
+
+        //then
+        assertThat(thread.getTotalReplies()).isZero();
+        assertThat(thread.getReplies()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("스레드 수가 0 이하면 조회하지 않는다")
+    void loadTopThreadsWithoutLimit() throws Exception {
+        //when
+        ReplyThreadDTO none = replyThreadService.loadTopThreads(board.getId(), 0,
+            ReplyThreadService.UNLIMITED, ReplyThreadService.UNLIMITED);
+        ReplyThreadDTO negative = replyThreadService.loadTopThreads(board.getId(), -1,
+            ReplyThreadService.UNLIMITED, ReplyThreadService.UNLIMITED);
+
+        //then
+        assertThat(none.getReplies()).isEmpty();
+        assertThat(negative.getReplies()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("materialized path 로 앞쪽 N 개 스레드 조회")
+    void loadTopThreads() throws Exception {
+        //when
+        ReplyThreadDTO first = replyThreadService.loadTopThreads(board.getId(), 1,
+            ReplyThreadService.UNLIMITED, ReplyThreadService.UNLIMITED);
+        ReplyThreadDTO all = replyThreadService.loadTopThreads(board.getId(), 10,
+            ReplyThreadService.UNLIMITED, ReplyThreadService.UNLIMITED);
+
+        //then
+        assertThat(first.getReplies()).extracting("content").containsExactly("reply1");
+        assertThat(first.getTotalReplies()).isEqualTo(5);
+        assertThat(all.getReplies()).extracting("content").containsExactly("reply1", "reply6");
+        assertThat(all.getTotalReplies()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("path 는 조상의 path 로 시작하고 depth 가 채워진다")
+    void pathAndDepth() throws Exception {
+        //when
+        Reply reply3 = em.createQuery("select r from Reply r where r.content = 'reply3'", Reply.class)
+            .getSingleResult();
+
+        //then
+        assertThat(reply3.getDepth()).isEqualTo(2);
+        assertThat(reply3.getPath()).startsWith(Reply.pathSegment(reply1.getId()));
+        assertThat(reply3.getPath()).hasSize(Reply.PATH_SEGMENT_LENGTH * 3);
+    }
+
+    @Test
+    @DisplayName("path_key 보다 깊은 스레드도 path 로 서브트리를 구분한다")
+    void deepSubtree() throws Exception {
+        //given: deep0 - deep1 - ... - deep80, deep70 아래에 side
+        User user = em.find(Board.class, board.getId()).getUser();
+        Board deepBoard = Board.builder().title("deep").content("deep").user(user).build();
+        em.persist(deepBoard);
+        Reply parent = Reply.createReply("deep0", deepBoard, user);
+        em.persist(parent);
+        Reply deep70 = null;
+        Reply deep75 = null;
+        for (int i = 1; i <= 80; i++) {
+            parent = Reply.createReReply("deep" + i, deepBoard, user, parent);
+            em.persist(parent);
+            if (i == 70) {
+                deep70 = parent;
+            } else if (i == 75) {
+                deep75 = parent;
+            }
+        }
+        em.persist(Reply.createReReply("side", deepBoard, user, deep70));
+        em.flush();
+        em.clear();
+
+        //when
+        ReplyThreadDTO from70 = replyThreadService.loadSubtree(deepBoard.getId(), deep70.getId(),
+            ReplyThreadService.UNLIMITED, ReplyThreadService.UNLIMITED);
+        ReplyThreadDTO from75 = replyThreadService.loadSubtree(deepBoard.getId(), deep75.getId(),
+            ReplyThreadService.UNLIMITED, ReplyThreadService.UNLIMITED);
+
+        //then
+        assertThat(from70.getTotalReplies()).isEqualTo(12);
+        assertThat(from70.getReplies().get(0).getChildren()).extracting("content").containsExactly("deep71", "side");
+        assertThat(from75.getTotalReplies()).isEqualTo(6);
+        assertThat(from75.getReplies()).extracting("content").containsExactly("deep75");
+
+        Reply deep80 = em.createQuery("select r from Reply r where r.content = 'deep80'", Reply.class)
+            .getSingleResult();
+        assertThat(deep80.getPath()).hasSize(Reply.PATH_SEGMENT_LENGTH * 81);
+        assertThat(deep80.getPathKey()).hasSize(Reply.PATH_KEY_LENGTH);
+        assertThat(deep80.getPath()).startsWith(deep80.getPathKey());
+    }
+}
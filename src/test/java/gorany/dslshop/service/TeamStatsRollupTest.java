@@ -0,0 +1,171 @@
+package gorany.dslshop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+
+import gorany.dslshop.RepositoryTestConfig;
+import gorany.dslshop.dto.TeamStatsDTO;
+import gorany.dslshop.entity.Member;
+import gorany.dslshop.entity.Team;
+import gorany.dslshop.metrics.StatementScope;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * 커밋된 변경만 반영되므로 테스트 트랜잭션 없이 직접 커밋한다.
+ */
+@DataJpaTest(properties = "dslshop.team-stats.enabled=true")
+@Import({RepositoryTestConfig.class, TeamStatsRollup.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TeamStatsRollupTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamStatsRollup rollup;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+        rollup.rebuild();
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        rollup.markStale();
+    }
+
+    @Test
+    @DisplayName("회원 생성 / 나이 변경 / 팀 변경 / 삭제가 커밋되면 group by 없이 반영된다")
+    void incremental() throws Exception {
+        //when
+        tx.executeWithoutResult(status -> {
+            Team teamA = em.find(Team.class, teamAId);
+            Team teamB = em.find(Team.class, teamBId);
+            em.persist(new Member("member5", 55, teamA));
+            findMember("member1").changeAge(15);
+            findMember("member2").changeTeam(teamB);
+            em.remove(findMember("member4"));
+        });
+
+        //then
+        List<TeamStatsDTO> stats;
+        try (StatementScope scope = StatementScope.open("team stats")) {
+            stats = rollup.getStats();
+            scope.assertStatementCount(0);
+        }
+        assertThat(stats).extracting("teamName", "memberCount", "sumAge", "minAge", "maxAge")
+            .containsExactly(
+                tuple("teamA", 2L, 70L, 15, 55),
+                tuple("teamB", 2L, 50L, 20, 30));
+        assertThat(stats.get(0).getAgeHistogram()).containsExactly(
+            entry("10-19", 1L),
+            entry("50-59", 1L));
+
+        //다시 group by 한 결과와 같다
+        rollup.rebuild();
+        assertThat(rollup.getStats()).usingRecursiveComparison().isEqualTo(stats);
+    }
+
+    @Test
+    @DisplayName("같은 트랜잭션에서 생성 후 변경한 회원은 변경된 팀 / 나이로 한 번만 반영된다")
+    void insertThenUpdate() throws Exception {
+        //when: insert 는 생성 때 값으로, 이후 변경은 update 로 flush 된다.
+        tx.executeWithoutResult(status -> {
+            Team teamA = em.find(Team.class, teamAId);
+            Team teamB = em.find(Team.class, teamBId);
+            Member member = new Member("member5", 25, teamA);
+            em.persist(member);
+            member.changeAge(35);
+            member.changeTeam(teamB);
+            em.flush();
+        });
+
+        //then
+        List<TeamStatsDTO> stats = rollup.getStats();
+        assertThat(stats).extracting("teamName", "memberCount", "sumAge", "minAge", "maxAge")
+            .containsExactly(
+                tuple("teamA", 2L, 30L, 10, 20),
+                tuple("teamB", 3L, 105L, 30, 40));
+        assertThat(stats.get(1).getAgeHistogram()).containsExactly(
+            entry("30-39", 2L),
+            entry("40-49", 1L));
+
+        rollup.rebuild();
+        assertThat(rollup.getStats()).usingRecursiveComparison().isEqualTo(stats);
+    }
+
+    @Test
+    @DisplayName("팀 변경은 이전 팀의 members 를 로딩하지 않는다")
+    void changeTeamDoesNotLoadMembers() throws Exception {
+        //when
+        tx.executeWithoutResult(status -> {
+            Member member = findMember("member2");
+            Team teamB = em.find(Team.class, teamBId);
+            try (StatementScope scope = StatementScope.open("change team")) {
+                member.changeTeam(teamB);
+                scope.assertStatementCount(0);
+            }
+            assertThat(Hibernate.isInitialized(teamB.getMembers())).isFalse();
+        });
+
+        //then
+        assertThat(rollup.getStats()).extracting("teamName", "memberCount")
+            .containsExactly(tuple("teamA", 1L), tuple("teamB", 3L));
+    }
+
+    @Test
+    @DisplayName("롤백된 변경은 반영되지 않는다")
+    void rollback() throws Exception {
+        //when
+        tx.executeWithoutResult(status -> {
+            findMember("member1").changeAge(99);
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertThat(rollup.getStats().get(0).getMaxAge()).isEqualTo(20);
+    }
+
+    private Member findMember(String username) {
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+            .setParameter("username", username)
+            .getSingleResult();
+    }
+}